@@ -0,0 +1,91 @@
+package org.canvas.lonell.benchmark;
+
+import org.canvas.lonell.entity.Canvas;
+import org.canvas.lonell.entity.StorageType;
+import org.canvas.lonell.manager.CanvasSession;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Canvas creation and the {@code L} and {@code R} commands, run through a session the way the
+ * console does. Each drawing invocation is undone in an untimed teardown so every invocation paints
+ * onto blank cells; below a few microseconds per operation the timer overhead of per-invocation
+ * fixtures dominates, so compare small sizes with care.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CanvasBenchmark {
+
+    @Param({"100", "1000", "4000"})
+    public int size;
+
+    @Param({"FLAT", "TILED", "RLE", "INDEXED", "PACKED"})
+    public StorageType storage;
+
+    private CanvasSession session;
+    private String horizontal;
+    private String vertical;
+    private String rectangle;
+    private boolean drawn;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        session = new CanvasSession(Discard.sink());
+        session.setAutoRender(false);
+        session.setStorageType(storage);
+        session.execute("C " + size + " " + size);
+
+        int middle = size / 2;
+        horizontal = "L 1 " + middle + " " + size + " " + middle;
+        vertical = "L " + middle + " 1 " + middle + " " + size;
+        rectangle = "R 1 1 " + size + " " + size;
+    }
+
+    @TearDown(Level.Invocation)
+    public void undo() {
+        if (drawn) {
+            session.execute("U");
+            drawn = false;
+        }
+    }
+
+    @Benchmark
+    public Canvas create() {
+        return new Canvas(size, size, storage);
+    }
+
+    @Benchmark
+    public void horizontalLine() {
+        session.execute(horizontal);
+        drawn = true;
+    }
+
+    @Benchmark
+    public void verticalLine() {
+        session.execute(vertical);
+        drawn = true;
+    }
+
+    @Benchmark
+    public void rectangle() {
+        session.execute(rectangle);
+        drawn = true;
+    }
+}
@@ -0,0 +1,26 @@
+package org.canvas.lonell.benchmark;
+
+import org.canvas.lonell.render.ByteSink;
+
+import java.io.OutputStream;
+
+/**
+ * Sink that drops every frame, so render benchmarks measure encoding rather than the terminal.
+ */
+final class Discard extends OutputStream {
+
+    private Discard() {
+    }
+
+    static ByteSink sink() {
+        return new ByteSink(new Discard());
+    }
+
+    @Override
+    public void write(int b) {
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+    }
+}
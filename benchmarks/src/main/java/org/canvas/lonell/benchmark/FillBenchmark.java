@@ -0,0 +1,69 @@
+package org.canvas.lonell.benchmark;
+
+import org.canvas.lonell.fill.FillEngine;
+import org.canvas.lonell.fill.ParallelFillEngine;
+import org.canvas.lonell.fill.ScanlineFillEngine;
+import org.canvas.lonell.utilities.Workers;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A bucket fill from {@code (1, 1)} on open, maze-like and spiral regions with the sequential
+ * scanline engine and the parallel engine, called directly on the canvas so no journaling or
+ * undo is timed. The parallel engine runs as the console does, on the shared pool and only above
+ * its size threshold; {@link ParallelFillBenchmark} shows how it scales with cores. The canvas is
+ * reset in an untimed teardown.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FillBenchmark {
+
+    public enum Engine {
+        SCANLINE, PARALLEL
+    }
+
+    @Param({"100", "1000", "4000"})
+    public int size;
+
+    @Param({"OPEN", "MAZE", "SPIRAL"})
+    public Region region;
+
+    @Param({"SCANLINE", "PARALLEL"})
+    public Engine engine;
+
+    private FillCanvas target;
+    private FillEngine fill;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        target = new FillCanvas(size, region);
+        fill = engine == Engine.PARALLEL ? new ParallelFillEngine(Workers.pool()) : new ScanlineFillEngine();
+    }
+
+    @TearDown(Level.Invocation)
+    public void reset() {
+        target.reset();
+    }
+
+    @Benchmark
+    public void bucketFill() {
+        fill.fill(target.canvas(), 1, 1, 'o');
+    }
+}
@@ -0,0 +1,36 @@
+package org.canvas.lonell.benchmark;
+
+import org.canvas.lonell.entity.Canvas;
+import org.canvas.lonell.entity.CanvasStorage;
+
+/**
+ * A square canvas with a {@link Region} drawn on it, plus a copy of its cells so a fill can be
+ * undone by writing the copy back outside the timed code.
+ */
+final class FillCanvas {
+
+    private final Canvas canvas;
+    private final char[][] rows;
+
+    FillCanvas(int size, Region region) {
+        canvas = new Canvas(size, size);
+        region.draw(canvas);
+        CanvasStorage storage = canvas.getStorage();
+        rows = new char[size][size];
+        for (int row = 0; row < size; row++) {
+            storage.copySpan(row, 0, size - 1, rows[row], 0);
+        }
+    }
+
+    Canvas canvas() {
+        return canvas;
+    }
+
+    void reset() {
+        CanvasStorage storage = canvas.getStorage();
+        for (int row = 0; row < rows.length; row++) {
+            storage.writeSpan(row, 0, rows.length - 1, rows[row], 0);
+        }
+        canvas.clearDirty();
+    }
+}
@@ -0,0 +1,70 @@
+package org.canvas.lonell.benchmark;
+
+import org.canvas.lonell.fill.ParallelFillEngine;
+import org.canvas.lonell.fill.ScanlineFillEngine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The parallel fill engine on its own pool of {@code threads} workers, with no size threshold,
+ * so the series shows how it scales with cores; {@code -p threads=...} covers the cores of a
+ * larger machine. The fill is called directly on the canvas, which is reset in an untimed
+ * teardown.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ParallelFillBenchmark {
+
+    @Param({"100", "1000", "4000"})
+    public int size;
+
+    @Param({"OPEN", "MAZE", "SPIRAL"})
+    public Region region;
+
+    @Param({"1", "2", "4", "8"})
+    public int threads;
+
+    private FillCanvas target;
+    private ForkJoinPool pool;
+    private ParallelFillEngine engine;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        target = new FillCanvas(size, region);
+        pool = new ForkJoinPool(threads);
+        engine = new ParallelFillEngine(pool, new ScanlineFillEngine(), 0);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @TearDown(Level.Invocation)
+    public void reset() {
+        target.reset();
+    }
+
+    @Benchmark
+    public void bucketFill() {
+        engine.fill(target.canvas(), 1, 1, 'o');
+    }
+}
@@ -0,0 +1,103 @@
+package org.canvas.lonell.benchmark;
+
+import org.canvas.lonell.command.Command;
+import org.canvas.lonell.command.CommandParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing a command line from a string and from the UTF-8 bytes a script reader hands over, against
+ * the splitting and repeated {@code Integer.parseInt} the session did before {@link CommandParser}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ParseBenchmark {
+
+    @Param({"L 1 22 300 22", "B 10 3 o", "C 1048576 1048576", "Z not a command"})
+    public String line;
+
+    private final CommandParser parser = new CommandParser();
+    private final Command command = new Command();
+    private byte[] bytes;
+
+    @Setup
+    public void setUp() {
+        bytes = line.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public Command parseString() {
+        parser.parse(line, command);
+        return command;
+    }
+
+    @Benchmark
+    public Command parseBytes() {
+        parser.parse(bytes, 0, bytes.length, command);
+        return command;
+    }
+
+    /**
+     * The old path: split the trimmed line on spaces, check the numeric arguments, then parse them
+     * again to use them. {@code B} takes a colour as its last argument.
+     */
+    @Benchmark
+    public int splitStringBaseline() {
+        String[] content = splitString(line);
+        String[] args = Arrays.copyOfRange(content, 1, content.length);
+        int numeric = content[0].equals("B") ? Math.min(2, args.length) : args.length;
+        int sum = 0;
+        if (isNumericAndPositive(0, numeric - 1, args)) {
+            for (int i = 0; i < numeric; i++) {
+                sum += Integer.parseInt(args[i]);
+            }
+        }
+        return sum;
+    }
+
+    private static String[] splitString(String str) {
+        return !isEmpty(str) ? str.trim().split(" ") : new String[0];
+    }
+
+    private static boolean isEmpty(String str) {
+        if (str == null || str.length() == 0) {
+            return true;
+        }
+        for (int i = 0; i < str.length(); i++) {
+            if (!Character.isWhitespace(str.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isNumericAndPositive(int start, int stop, String... args) {
+        for (int i = start; i <= stop; i++) {
+            try {
+                if (Integer.parseInt(args[i]) < 0) {
+                    return false;
+                }
+            } catch (NumberFormatException nfe) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
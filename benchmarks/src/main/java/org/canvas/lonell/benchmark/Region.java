@@ -0,0 +1,65 @@
+package org.canvas.lonell.benchmark;
+
+import org.canvas.lonell.entity.Canvas;
+
+/**
+ * Wall layouts for fill benchmarks. Each leaves {@code (1, 1)} blank and connected to the whole
+ * region the fill is expected to cover.
+ */
+public enum Region {
+    /**
+     * A blank canvas, filled in one sweep.
+     */
+    OPEN {
+        @Override
+        public void draw(Canvas canvas) {
+        }
+    },
+    /**
+     * Vertical walls every four columns with the gap alternating between top and bottom, so the
+     * region is a single corridor snaking across the canvas.
+     */
+    MAZE {
+        @Override
+        public void draw(Canvas canvas) {
+            int width = canvas.getInnerWidth();
+            int height = canvas.getInnerHeight();
+            boolean gapAtBottom = true;
+            for (int col = 4; col <= width; col += 4) {
+                if (gapAtBottom) {
+                    canvas.paintColumn(col, 1, height - 1, 'x');
+                } else {
+                    canvas.paintColumn(col, 2, height, 'x');
+                }
+                gapAtBottom = !gapAtBottom;
+            }
+        }
+    },
+    /**
+     * Nested square rings three cells apart, each with one gap on alternating sides, so the fill
+     * has to wind inwards ring by ring.
+     */
+    SPIRAL {
+        @Override
+        public void draw(Canvas canvas) {
+            int width = canvas.getInnerWidth();
+            int height = canvas.getInnerHeight();
+            boolean gapOnTop = true;
+            for (int d = 3; 2 * d + 2 < Math.min(width, height); d += 3) {
+                int left = d;
+                int top = d;
+                int right = width - d + 1;
+                int bottom = height - d + 1;
+                int gap = gapOnTop ? top : bottom;
+                canvas.paintRow(gapOnTop ? bottom : top, left, right, 'x');
+                canvas.paintRow(gap, left, left + 1, 'x');
+                canvas.paintRow(gap, left + 3, right, 'x');
+                canvas.paintColumn(left, top, bottom, 'x');
+                canvas.paintColumn(right, top, bottom, 'x');
+                gapOnTop = !gapOnTop;
+            }
+        }
+    };
+
+    public abstract void draw(Canvas canvas);
+}
@@ -0,0 +1,57 @@
+package org.canvas.lonell.benchmark;
+
+import org.canvas.lonell.entity.Canvas;
+import org.canvas.lonell.entity.StorageType;
+import org.canvas.lonell.render.FrameRenderer;
+import org.canvas.lonell.utilities.Workers;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encoding a full frame of a maze canvas whose corridors are half filled, into a sink that drops
+ * the bytes.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RenderBenchmark {
+
+    @Param({"100", "1000", "4000"})
+    public int size;
+
+    @Param({"FLAT", "TILED", "RLE", "INDEXED", "PACKED"})
+    public StorageType storage;
+
+    private Canvas canvas;
+    private FrameRenderer renderer;
+
+    @Setup
+    public void setUp() {
+        canvas = new Canvas(size, size, storage);
+        Region.MAZE.draw(canvas);
+        for (int row = 1; row <= size / 2; row++) {
+            canvas.paintRow(row, 1, size, 'o');
+        }
+        renderer = new FrameRenderer(Discard.sink(), Workers.pool());
+    }
+
+    @Benchmark
+    public void render() throws IOException {
+        renderer.render(canvas);
+    }
+}
@@ -1,16 +1,75 @@
 package org.canvas.lonell;
 
+import org.canvas.lonell.entity.StorageType;
+import org.canvas.lonell.fill.ParallelFillEngine;
+import org.canvas.lonell.image.Palette;
 import org.canvas.lonell.manager.CanvasManager;
+import org.canvas.lonell.manager.ScriptRunner;
+import org.canvas.lonell.render.DeltaRenderer;
+import org.canvas.lonell.server.CanvasServer;
+import org.canvas.lonell.utilities.Workers;
 
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.file.Paths;
 import java.util.Scanner;
 
 public class App {
 
-    public static void main( String[] args ) {
+    public static void main( String[] args ) throws IOException {
+        String script = null;
+        int port = -1;
+        int renderEvery = 0;
+        CanvasManager.getSession().getStats().register("console");
+
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--patch")) {
+                CanvasManager.setRenderer(new DeltaRenderer(CanvasManager.getSession().getSink(), DeltaRenderer.Mode.PATCH));
+            } else if (args[i].equals("--ansi")) {
+                CanvasManager.setRenderer(new DeltaRenderer(CanvasManager.getSession().getSink(), DeltaRenderer.Mode.ANSI));
+            } else if (args[i].equals("--async")) {
+                CanvasManager.getSession().setAsyncRender(true);
+            } else if (args[i].equals("--script") && i + 1 < args.length) {
+                script = args[++i];
+            } else if (args[i].equals("--storage") && i + 1 < args.length) {
+                CanvasManager.getSession().setStorageType(StorageType.valueOf(args[++i].toUpperCase()));
+            } else if (args[i].equals("--palette") && i + 1 < args.length) {
+                CanvasManager.getSession().setPalette(Palette.parse(args[++i]));
+            } else if (args[i].equals("--retained")) {
+                CanvasManager.getSession().setRetained(true);
+            } else if (args[i].equals("--regions")) {
+                CanvasManager.getSession().setRegionIndex(true);
+            } else if (args[i].equals("--parallel-fill")) {
+                CanvasManager.setFillEngine(new ParallelFillEngine(Workers.pool()));
+            } else if (args[i].equals("--history") && i + 1 < args.length) {
+                CanvasManager.getSession().setHistoryLimit(Long.parseLong(args[++i]) << 20);
+            } else if (args[i].equals("--server") && i + 1 < args.length) {
+                port = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--every") && i + 1 < args.length) {
+                renderEvery = Integer.parseInt(args[++i]);
+            }
+        }
+
+        if (port >= 0) {
+            CanvasServer server = new CanvasServer(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+            server.bind();
+            System.err.println("Serving canvas sessions on port " + server.getPort() + ".");
+            server.run();
+            return;
+        }
+
+        if (script != null) {
+            ScriptRunner runner = new ScriptRunner(CanvasManager.getSession(), renderEvery);
+            runner.run(Paths.get(script));
+            System.err.println(runner.summary());
+            return;
+        }
+
         Scanner in = new Scanner(System.in);
 
         while(true){
-            System.out.print("enter a command: ");
+            CanvasManager.prompt("enter a command: ");
             String input = in.nextLine();
 
             if (input.length() > 0){
@@ -0,0 +1,99 @@
+package org.canvas.lonell.command;
+
+import java.util.Arrays;
+
+/**
+ * A parsed command line: a single-character opcode followed by its arguments. Every argument is
+ * parsed once into an {@code int}; tokens that are not integers are flagged instead of throwing, and
+ * the first character of each token is kept for arguments such as the bucket fill colour.
+ * Instances are mutable so a parser can reuse one per session; argument text is only valid until
+ * the next parse.
+ */
+public class Command {
+
+    public static final char INVALID = '\u0000';
+
+    /**
+     * Opcode of the {@code STATS} command, the only one spelled as a word.
+     */
+    public static final char STATS = '\u0001';
+
+    private char opcode;
+    private int size;
+    private int[] values = new int[8];
+    private boolean[] numeric = new boolean[8];
+    private char[] firsts = new char[8];
+    private int[] starts = new int[8];
+    private int[] ends = new int[8];
+    private char[] line;
+
+    void reset(char opcode, char[] line) {
+        this.opcode = opcode;
+        this.line = line;
+        size = 0;
+    }
+
+    void add(int value, boolean isNumeric, int start, int end) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+            numeric = Arrays.copyOf(numeric, size * 2);
+            firsts = Arrays.copyOf(firsts, size * 2);
+            starts = Arrays.copyOf(starts, size * 2);
+            ends = Arrays.copyOf(ends, size * 2);
+        }
+        values[size] = value;
+        numeric[size] = isNumeric;
+        firsts[size] = start < end ? line[start] : '\u0000';
+        starts[size] = start;
+        ends[size] = end;
+        size++;
+    }
+
+    public char getOpcode() {
+        return opcode;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int get(int i) {
+        return values[i];
+    }
+
+    public boolean isNumeric(int i) {
+        return numeric[i];
+    }
+
+    /**
+     * Returns the first character of argument {@code i}, or {@code '\u0000'} for an empty token.
+     */
+    public char charAt(int i) {
+        return firsts[i];
+    }
+
+    /**
+     * Returns the arguments from {@code from} to the end of the line as they were typed, so a file
+     * name may contain spaces.
+     */
+    public String getText(int from) {
+        return new String(line, starts[from], ends[size - 1] - starts[from]);
+    }
+
+    public boolean isNumericAndPositive(int start, int stop) {
+        for (int i = start; i <= stop; i++) {
+            if (!numeric[i] || values[i] < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public void swapSmaller(int a, int b) {
+        if (values[a] > values[b]) {
+            int temp = values[a];
+            values[a] = values[b];
+            values[b] = temp;
+        }
+    }
+}
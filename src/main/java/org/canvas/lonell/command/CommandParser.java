@@ -0,0 +1,167 @@
+package org.canvas.lonell.command;
+
+/**
+ * Tokenizes a command line in a single pass without creating substrings or throwing on bad input.
+ * Tokens are separated by single spaces after leading and trailing whitespace is trimmed, matching
+ * the {@code String.split(" ")} the commands were first parsed with, so two consecutive spaces
+ * still produce an empty argument.
+ */
+public class CommandParser {
+
+    private static final String STATS = "STATS";
+
+    private char[] chars = new char[256];
+
+    /**
+     * Parses {@code line} into {@code command}. Returns {@code false} if the line is blank.
+     */
+    public boolean parse(CharSequence line, Command command) {
+        int length = line.length();
+        ensureCapacity(length);
+        for (int i = 0; i < length; i++) {
+            chars[i] = line.charAt(i);
+        }
+        return parse(chars, 0, length, command);
+    }
+
+    /**
+     * Parses a UTF-8 encoded line, such as one returned by {@code MappedLineReader}. Characters
+     * outside the Basic Multilingual Plane become a surrogate pair, as they would in a
+     * {@code String}, and malformed sequences become {@code '?'}.
+     */
+    public boolean parse(byte[] bytes, int offset, int length, Command command) {
+        ensureCapacity(length);
+        int n = 0;
+        int end = offset + length;
+        for (int i = offset; i < end; i++) {
+            int b = bytes[i] & 0xff;
+            if (b < 0x80) {
+                chars[n++] = (char) b;
+            } else if (b >= 0xf8) {
+                chars[n++] = '?';
+            } else if (b >= 0xf0 && i + 3 < end) {
+                int codePoint = ((b & 0x07) << 18) | ((bytes[i + 1] & 0x3f) << 12) | ((bytes[i + 2] & 0x3f) << 6) | (bytes[i + 3] & 0x3f);
+                chars[n++] = Character.highSurrogate(codePoint);
+                chars[n++] = Character.lowSurrogate(codePoint);
+                i += 3;
+            } else if (b >= 0xf0) {
+                chars[n++] = '?';
+            } else if (b >= 0xe0 && i + 2 < end) {
+                chars[n++] = (char) (((b & 0x0f) << 12) | ((bytes[i + 1] & 0x3f) << 6) | (bytes[i + 2] & 0x3f));
+                i += 2;
+            } else if (b >= 0xc0 && i + 1 < end) {
+                chars[n++] = (char) (((b & 0x1f) << 6) | (bytes[i + 1] & 0x3f));
+                i += 1;
+            } else {
+                chars[n++] = '?';
+            }
+        }
+        return parse(chars, 0, n, command);
+    }
+
+    /**
+     * Builds a command from an already split opcode and argument list.
+     */
+    public boolean parse(String opcode, String[] args, Command command) {
+        int total = 0;
+        for (String arg : args) {
+            total += arg.length() + 1;
+        }
+        ensureCapacity(total);
+
+        command.reset(opcode.length() == 1 ? opcode.charAt(0) : STATS.equals(opcode) ? Command.STATS : Command.INVALID, chars);
+        int start = 0;
+        for (String arg : args) {
+            int length = arg.length();
+            arg.getChars(0, length, chars, start);
+            addToken(chars, start, start + length, command);
+            chars[start + length] = ' ';
+            start += length + 1;
+        }
+        return true;
+    }
+
+    public boolean parse(char[] line, int offset, int length, Command command) {
+        int start = offset;
+        int end = offset + length;
+        while (start < end && line[start] <= ' ') {
+            start++;
+        }
+        while (end > start && line[end - 1] <= ' ') {
+            end--;
+        }
+        if (start == end) {
+            return false;
+        }
+
+        int tokenEnd = start;
+        while (tokenEnd < end && line[tokenEnd] != ' ') {
+            tokenEnd++;
+        }
+        command.reset(tokenEnd - start == 1 ? line[start] : word(line, start, tokenEnd), line);
+
+        while (tokenEnd < end) {
+            int tokenStart = tokenEnd + 1;
+            tokenEnd = tokenStart;
+            while (tokenEnd < end && line[tokenEnd] != ' ') {
+                tokenEnd++;
+            }
+            addToken(line, tokenStart, tokenEnd, command);
+        }
+        return true;
+    }
+
+    private static char word(char[] line, int start, int end) {
+        if (end - start != STATS.length()) {
+            return Command.INVALID;
+        }
+        for (int i = start; i < end; i++) {
+            if (line[i] != STATS.charAt(i - start)) {
+                return Command.INVALID;
+            }
+        }
+        return Command.STATS;
+    }
+
+    private void addToken(char[] line, int start, int end, Command command) {
+        if (start == end) {
+            command.add(0, false, start, end);
+            return;
+        }
+
+        int i = start;
+        boolean negative = false;
+        if (line[i] == '-' || line[i] == '+') {
+            negative = line[i] == '-';
+            i++;
+        }
+
+        long value = 0;
+        boolean numeric = i < end;
+        for (; i < end && numeric; i++) {
+            char c = line[i];
+            if (c < '0' || c > '9') {
+                numeric = false;
+            } else {
+                value = value * 10 + (c - '0');
+                if (value > (long) Integer.MAX_VALUE + 1) {
+                    numeric = false;
+                }
+            }
+        }
+        if (negative) {
+            value = -value;
+        }
+        if (value > Integer.MAX_VALUE) {
+            numeric = false;
+        }
+
+        command.add(numeric ? (int) value : 0, numeric, start, end);
+    }
+
+    private void ensureCapacity(int length) {
+        if (chars.length < length) {
+            chars = new char[Math.max(length, chars.length * 2)];
+        }
+    }
+}
@@ -1,18 +1,220 @@
 package org.canvas.lonell.entity;
 
+import java.util.BitSet;
+
+/**
+ * Drawing surface holding only the inner cells in a {@link CanvasStorage}. Rows and columns use the
+ * same 1-based coordinates as the commands; the border sits at row {@code 0} /
+ * {@code getHeight() - 1} and column {@code 0} / {@code getWidth() - 1} and is never stored. Every
+ * write marks its row dirty until a renderer calls {@link #clearDirty()}.
+ */
 public class Canvas {
-    char[][] canvas;
+    public static final char BLANK = ' ';
+    public static final char HORIZONTAL_BORDER = '-';
+    public static final char VERTICAL_BORDER = '|';
+    public static final int MAX_DIMENSION = 1 << 20;
+
+    private final CanvasStorage storage;
+    private final BitSet dirtyRows = new BitSet();
     private int width;
     private int height;
+    private int innerWidth;
+    private int innerHeight;
 
     public Canvas(int w, int h){
-        width = w+2;
-        height = h+2;
-        canvas = new char[height][width];
+        this(StorageType.forSize(w, h).create(w, h));
+    }
+
+    public Canvas(int w, int h, StorageType type){
+        this(type.create(w, h));
     }
 
+    public Canvas(CanvasStorage storage){
+        this.storage = storage;
+        innerWidth = storage.getWidth();
+        innerHeight = storage.getHeight();
+        width = innerWidth+2;
+        height = innerHeight+2;
+        markDirty(1, innerHeight);
+    }
+
+    /**
+     * Returns a snapshot of the canvas, borders included, as {@code char[height][width]}. The array
+     * is a copy: writing to it does not change the canvas, use {@link #set(int, int, char)}.
+     */
+    public char[][] toArray() {
+        char[][] copy = new char[height][width];
+        for (int i = 0; i < height; i++) {
+            for (int j = 0; j < width; j++) {
+                copy[i][j] = get(i, j);
+            }
+        }
+        return copy;
+    }
+
+    /**
+     * Compatibility view for callers of the old {@code char[][]} canvas: the same bordered copy as
+     * {@link #toArray()}. Writes to it are not seen by the canvas.
+     *
+     * @deprecated use {@link #toArray()} to read and {@link #set(int, int, char)} to write
+     */
+    @Deprecated
     public char[][] getCanvas() {
-        return canvas;
+        return toArray();
+    }
+
+    public CanvasStorage getStorage() {
+        return storage;
+    }
+
+    public char get(int row, int col) {
+        if (row == 0 || row == height - 1) {
+            return HORIZONTAL_BORDER;
+        }
+        if (col == 0 || col == width - 1) {
+            return VERTICAL_BORDER;
+        }
+        return storage.get(row - 1, col - 1);
+    }
+
+    public void set(int row, int col, char c) {
+        storage.set(row - 1, col - 1, c);
+        dirtyRows.set(row);
+    }
+
+    public void clear() {
+        storage.fill(BLANK);
+        markDirty(1, innerHeight);
+    }
+
+    /**
+     * Sets every cell of {@code row} between {@code from} and {@code to} inclusive to {@code c}.
+     */
+    public void fillRow(int row, int from, int to, char c) {
+        storage.fillSpan(row - 1, from - 1, to - 1, c);
+        dirtyRows.set(row);
+    }
+
+    /**
+     * Sets every cell of the block from column {@code left}, row {@code top} to column
+     * {@code right}, row {@code bottom} inclusive to {@code c}, one span per row.
+     */
+    public void fillBlock(int left, int top, int right, int bottom, char c) {
+        for (int row = top; row <= bottom; row++) {
+            storage.fillSpan(row - 1, left - 1, right - 1, c);
+        }
+        markDirty(top, bottom);
+    }
+
+    /**
+     * Copies the block from column {@code left}, row {@code top} to column {@code right}, row
+     * {@code bottom} inclusive so that its upper left corner lands on column {@code toLeft}, row
+     * {@code toTop}. Each row goes through one buffer, and rows are copied bottom-up when the block
+     * moves down, so an overlapping destination gets the cells the source held before the copy.
+     */
+    public void copyBlock(int left, int top, int right, int bottom, int toLeft, int toTop) {
+        char[] buffer = new char[right - left + 1];
+        int rows = bottom - top + 1;
+        boolean down = toTop > top;
+        for (int i = 0; i < rows; i++) {
+            int row = down ? bottom - i : top + i;
+            storage.copySpan(row - 1, left - 1, right - 1, buffer, 0);
+            storage.writeSpan(row - 1 + toTop - top, toLeft - 1, toLeft - 1 + right - left, buffer, 0);
+        }
+        markDirty(toTop, toTop + rows - 1);
+    }
+
+    /**
+     * Writes {@code c} into every blank cell of {@code row} between {@code from} and {@code to}
+     * inclusive, leaving painted cells untouched.
+     */
+    public void paintRow(int row, int from, int to, char c) {
+        if (storage.paintSpan(row - 1, from - 1, to - 1, c)) {
+            dirtyRows.set(row);
+        }
+    }
+
+    /**
+     * Writes {@code c} into every blank cell of the line from column {@code x1}, row {@code y1} to
+     * column {@code x2}, row {@code y2}, one row run at a time.
+     */
+    public void paintLine(int x1, int y1, int x2, int y2, char c) {
+        Shape line = new Shape(Shape.Kind.LINE, y1 - 1, x1 - 1, y2 - 1, x2 - 1, c);
+        for (int row = line.getTop(); row <= line.getBottom(); row++) {
+            paintRow(row + 1, line.runFrom(row) + 1, line.runTo(row) + 1, c);
+        }
+    }
+
+    /**
+     * Writes {@code c} into every blank cell of {@code col} between rows {@code from} and {@code to}
+     * inclusive, leaving painted cells untouched.
+     */
+    public void paintColumn(int col, int from, int to, char c) {
+        for (int row = from; row <= to; row++) {
+            if (storage.get(row - 1, col - 1) == BLANK) {
+                storage.set(row - 1, col - 1, c);
+                dirtyRows.set(row);
+            }
+        }
+    }
+
+    /**
+     * Returns the first blank column of {@code row} in {@code [from, to]}, or {@code to + 1}.
+     */
+    public int nextBlank(int row, int from, int to) {
+        return storage.nextBlank(row - 1, from - 1, to - 1) + 1;
+    }
+
+    /**
+     * Returns the first painted column of {@code row} in {@code [from, to]}, or {@code to + 1}.
+     */
+    public int nextPainted(int row, int from, int to) {
+        return storage.nextPainted(row - 1, from - 1, to - 1) + 1;
+    }
+
+    /**
+     * Returns the last painted column of {@code row} in {@code [from, to]}, or {@code from - 1}.
+     */
+    public int prevPainted(int row, int from, int to) {
+        return storage.prevPainted(row - 1, from - 1, to - 1) + 1;
+    }
+
+    /**
+     * Returns the first column after {@code from} whose cell differs from the one at {@code from},
+     * or {@code to + 1}.
+     */
+    public int runEnd(int row, int from, int to) {
+        return storage.runEnd(row - 1, from - 1, to - 1) + 1;
+    }
+
+    /**
+     * Copies the inner cells of {@code row} into {@code dest} starting at {@code offset}.
+     */
+    public void copyRow(int row, char[] dest, int offset) {
+        storage.copySpan(row - 1, 0, innerWidth - 1, dest, offset);
+    }
+
+    public static boolean isBlank(char c) {
+        return c == BLANK || c == '\u0000';
+    }
+
+    public void markDirty(int row) {
+        dirtyRows.set(row);
+    }
+
+    public void markDirty(int from, int to) {
+        dirtyRows.set(from, to + 1);
+    }
+
+    /**
+     * Returns the first dirty row at or after {@code from}, or {@code -1} if there is none.
+     */
+    public int nextDirtyRow(int from) {
+        return dirtyRows.nextSetBit(from);
+    }
+
+    public void clearDirty() {
+        dirtyRows.clear();
     }
 
     public int getWidth() {
@@ -22,4 +224,12 @@ public class Canvas {
     public int getHeight() {
         return height;
     }
-}
\ No newline at end of file
+
+    public int getInnerWidth() {
+        return innerWidth;
+    }
+
+    public int getInnerHeight() {
+        return innerHeight;
+    }
+}
@@ -0,0 +1,61 @@
+package org.canvas.lonell.entity;
+
+/**
+ * Cell storage behind a {@link Canvas}. Rows and columns are 0-based inner coordinates and ranges
+ * are inclusive; the canvas takes care of borders, 1-based coordinates and dirty tracking. Scans
+ * return {@code to + 1} (or {@code from - 1} scanning backwards) when nothing matches.
+ */
+public interface CanvasStorage {
+
+    int getWidth();
+
+    int getHeight();
+
+    char get(int row, int col);
+
+    void set(int row, int col, char c);
+
+    /**
+     * Sets every cell to {@code c}.
+     */
+    void fill(char c);
+
+    /**
+     * Sets every cell of {@code row} between {@code from} and {@code to} to {@code c}.
+     */
+    void fillSpan(int row, int from, int to, char c);
+
+    /**
+     * Sets only the blank cells of {@code row} between {@code from} and {@code to} to {@code c}.
+     * Returns whether any cell changed.
+     */
+    boolean paintSpan(int row, int from, int to, char c);
+
+    int nextBlank(int row, int from, int to);
+
+    int nextPainted(int row, int from, int to);
+
+    int prevPainted(int row, int from, int to);
+
+    /**
+     * Returns the first column after {@code from} whose cell differs from the one at {@code from},
+     * or {@code to + 1} if the run reaches {@code to}.
+     */
+    int runEnd(int row, int from, int to);
+
+    /**
+     * Copies cells {@code from} to {@code to} of {@code row} into {@code dest} at {@code offset}.
+     */
+    void copySpan(int row, int from, int to, char[] dest, int offset);
+
+    /**
+     * Sets cells {@code from} to {@code to} of {@code row} to the cells of {@code src} starting at
+     * {@code offset}.
+     */
+    void writeSpan(int row, int from, int to, char[] src, int offset);
+
+    /**
+     * Approximate number of bytes held for cell data.
+     */
+    long memoryBytes();
+}
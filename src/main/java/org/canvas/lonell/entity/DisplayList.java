@@ -0,0 +1,310 @@
+package org.canvas.lonell.entity;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Retained-mode storage: shapes are kept in a uniform grid index instead of being painted, and a
+ * grid cell is rasterised into the wrapped storage only when something first reads or writes it.
+ * Each cell lists, in drawing order, the shapes passing through it and how many of them it has
+ * already painted, so rendering or filling part of the canvas costs only the shapes in that part.
+ * The grid has cells of at least 64x64 and at most 1024 of them per side.
+ */
+public class DisplayList implements CanvasStorage {
+
+    private static final int MIN_SHIFT = 6;
+    private static final int MAX_CELLS_PER_SIDE = 1024;
+    private static final Shape[] NONE = new Shape[0];
+    private static final Comparator<Shape> DRAWING_ORDER = new Comparator<Shape>() {
+        @Override
+        public int compare(Shape a, Shape b) {
+            return Long.compare(a.order, b.order);
+        }
+    };
+
+    private final CanvasStorage storage;
+    private final int shift;
+    private final int gridWidth;
+    private final int gridHeight;
+    private final Shape[][] cells;
+    private final int[] sizes;
+    private final int[] painted;
+    private final AtomicIntegerArray pendingCells;
+    private long nextOrder;
+    private int shapes;
+
+    public DisplayList(CanvasStorage storage) {
+        this.storage = storage;
+        int longest = Math.max(storage.getWidth(), storage.getHeight());
+        int s = MIN_SHIFT;
+        while (((longest - 1) >> s) + 1 > MAX_CELLS_PER_SIDE) {
+            s++;
+        }
+        shift = s;
+        gridWidth = ((storage.getWidth() - 1) >> shift) + 1;
+        gridHeight = ((storage.getHeight() - 1) >> shift) + 1;
+        cells = new Shape[gridWidth * gridHeight][];
+        Arrays.fill(cells, NONE);
+        sizes = new int[cells.length];
+        painted = new int[cells.length];
+        pendingCells = new AtomicIntegerArray(gridHeight);
+    }
+
+    /**
+     * Returns the wrapped storage.
+     */
+    public CanvasStorage getStorage() {
+        return storage;
+    }
+
+    /**
+     * Appends {@code shape} on top of everything drawn so far. Its cells are painted lazily; the
+     * before-image of every span it paints is handed to {@code recorder}, if any.
+     */
+    public synchronized void add(Shape shape, SpanRecorder recorder) {
+        shape.order = nextOrder++;
+        shape.recorder = recorder;
+        shapes++;
+        for (int gr = shape.getTop() >> shift; gr <= shape.getBottom() >> shift; gr++) {
+            for (int gc = shape.getLeft() >> shift; gc <= shape.getRight() >> shift; gc++) {
+                if (!crossesCell(shape, gr, gc)) {
+                    continue;
+                }
+                int index = gr * gridWidth + gc;
+                if (sizes[index] == cells[index].length) {
+                    cells[index] = Arrays.copyOf(cells[index], Math.max(4, sizes[index] * 2));
+                }
+                if (painted[index] == sizes[index]) {
+                    pendingCells.incrementAndGet(gr);
+                }
+                cells[index][sizes[index]++] = shape;
+            }
+        }
+    }
+
+    /**
+     * Removes the most recently added {@code shape} from the index, leaving any cells it already
+     * painted as they are.
+     */
+    public synchronized void remove(Shape shape) {
+        shapes--;
+        for (int gr = shape.getTop() >> shift; gr <= shape.getBottom() >> shift; gr++) {
+            for (int gc = shape.getLeft() >> shift; gc <= shape.getRight() >> shift; gc++) {
+                int index = gr * gridWidth + gc;
+                int size = sizes[index];
+                if (size == 0 || cells[index][size - 1] != shape) {
+                    continue;
+                }
+                boolean wasPending = painted[index] < size;
+                cells[index][--size] = null;
+                sizes[index] = size;
+                painted[index] = Math.min(painted[index], size);
+                if (wasPending && painted[index] == size) {
+                    pendingCells.decrementAndGet(gr);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the shapes passing through the given region, in drawing order.
+     */
+    public synchronized List<Shape> query(int top, int left, int bottom, int right) {
+        Map<Shape, Boolean> found = new IdentityHashMap<>();
+        for (int gr = Math.max(0, top >> shift); gr <= Math.min(gridHeight - 1, bottom >> shift); gr++) {
+            for (int gc = Math.max(0, left >> shift); gc <= Math.min(gridWidth - 1, right >> shift); gc++) {
+                int index = gr * gridWidth + gc;
+                for (int k = 0; k < sizes[index]; k++) {
+                    Shape shape = cells[index][k];
+                    if (shape.crosses(top, left, bottom, right)) {
+                        found.put(shape, Boolean.TRUE);
+                    }
+                }
+            }
+        }
+        List<Shape> result = new ArrayList<>(found.keySet());
+        Collections.sort(result, DRAWING_ORDER);
+        return result;
+    }
+
+    /**
+     * Returns the topmost shape passing through the cell at {@code row}, {@code col}, or
+     * {@code null}.
+     */
+    public synchronized Shape hitTest(int row, int col) {
+        int index = (row >> shift) * gridWidth + (col >> shift);
+        for (int k = sizes[index] - 1; k >= 0; k--) {
+            if (cells[index][k].covers(row, col)) {
+                return cells[index][k];
+            }
+        }
+        return null;
+    }
+
+    public synchronized int getShapes() {
+        return shapes;
+    }
+
+    /**
+     * Returns the number of grid cells holding shapes that are not painted yet.
+     */
+    public int getPendingCells() {
+        int total = 0;
+        for (int gr = 0; gr < gridHeight; gr++) {
+            total += pendingCells.get(gr);
+        }
+        return total;
+    }
+
+    private boolean crossesCell(Shape shape, int gr, int gc) {
+        int top = gr << shift;
+        int left = gc << shift;
+        return shape.crosses(top, left, top + (1 << shift) - 1, left + (1 << shift) - 1);
+    }
+
+    /**
+     * Paints the pending shapes of every cell that {@code row} crosses between {@code from} and
+     * {@code to}. The pending count per grid row is read first without locking, so rows whose
+     * cells are all painted cost one volatile read.
+     */
+    private void materialise(int row, int from, int to) {
+        int gr = row >> shift;
+        if (pendingCells.get(gr) == 0) {
+            return;
+        }
+        synchronized (this) {
+            for (int gc = from >> shift, last = to >> shift; gc <= last; gc++) {
+                paintCell(gr, gc);
+            }
+        }
+    }
+
+    /**
+     * Paints every shape still pending in the given region, clipped to the canvas, into the
+     * wrapped storage now rather than when the region is next read.
+     */
+    public void paint(int top, int left, int bottom, int right) {
+        int last = storage.getWidth() - 1;
+        for (int gr = Math.max(0, top) >> shift, end = Math.min(storage.getHeight() - 1, bottom) >> shift; gr <= end; gr++) {
+            materialise(gr << shift, Math.max(0, left), Math.min(last, right));
+        }
+    }
+
+    private synchronized void materialiseAll() {
+        for (int gr = 0; gr < gridHeight; gr++) {
+            if (pendingCells.get(gr) != 0) {
+                for (int gc = 0; gc < gridWidth; gc++) {
+                    paintCell(gr, gc);
+                }
+            }
+        }
+    }
+
+    private void paintCell(int gr, int gc) {
+        int index = gr * gridWidth + gc;
+        int size = sizes[index];
+        if (painted[index] == size) {
+            return;
+        }
+        int top = gr << shift;
+        int left = gc << shift;
+        int bottom = Math.min(storage.getHeight() - 1, top + (1 << shift) - 1);
+        int right = Math.min(storage.getWidth() - 1, left + (1 << shift) - 1);
+        for (int k = painted[index]; k < size; k++) {
+            cells[index][k].rasterise(storage, top, left, bottom, right);
+        }
+        painted[index] = size;
+        pendingCells.decrementAndGet(gr);
+    }
+
+    @Override
+    public int getWidth() {
+        return storage.getWidth();
+    }
+
+    @Override
+    public int getHeight() {
+        return storage.getHeight();
+    }
+
+    @Override
+    public char get(int row, int col) {
+        materialise(row, col, col);
+        return storage.get(row, col);
+    }
+
+    @Override
+    public void set(int row, int col, char c) {
+        materialise(row, col, col);
+        storage.set(row, col, c);
+    }
+
+    @Override
+    public void fill(char c) {
+        materialiseAll();
+        storage.fill(c);
+    }
+
+    @Override
+    public void fillSpan(int row, int from, int to, char c) {
+        materialise(row, from, to);
+        storage.fillSpan(row, from, to, c);
+    }
+
+    @Override
+    public boolean paintSpan(int row, int from, int to, char c) {
+        materialise(row, from, to);
+        return storage.paintSpan(row, from, to, c);
+    }
+
+    @Override
+    public int nextBlank(int row, int from, int to) {
+        materialise(row, from, to);
+        return storage.nextBlank(row, from, to);
+    }
+
+    @Override
+    public int nextPainted(int row, int from, int to) {
+        materialise(row, from, to);
+        return storage.nextPainted(row, from, to);
+    }
+
+    @Override
+    public int prevPainted(int row, int from, int to) {
+        materialise(row, from, to);
+        return storage.prevPainted(row, from, to);
+    }
+
+    @Override
+    public int runEnd(int row, int from, int to) {
+        materialise(row, from, to);
+        return storage.runEnd(row, from, to);
+    }
+
+    @Override
+    public void copySpan(int row, int from, int to, char[] dest, int offset) {
+        materialise(row, from, to);
+        storage.copySpan(row, from, to, dest, offset);
+    }
+
+    @Override
+    public void writeSpan(int row, int from, int to, char[] src, int offset) {
+        materialise(row, from, to);
+        storage.writeSpan(row, from, to, src, offset);
+    }
+
+    @Override
+    public long memoryBytes() {
+        long bytes = storage.memoryBytes() + 16L * cells.length;
+        for (Shape[] cell : cells) {
+            bytes += 8L * cell.length;
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,139 @@
+package org.canvas.lonell.entity;
+
+import org.canvas.lonell.utilities.Workers;
+
+import java.util.Arrays;
+
+/**
+ * Stores every inner cell in one contiguous row-major {@code char} buffer.
+ */
+public class FlatStorage implements CanvasStorage {
+
+    public static final long MAX_CELLS = Integer.MAX_VALUE - 8;
+
+    private final char[] pixels;
+    private final int width;
+    private final int height;
+
+    public FlatStorage(int width, int height) {
+        if ((long) width * height > MAX_CELLS) {
+            throw new IllegalArgumentException("Canvas is too large for flat storage: " + width + "x" + height);
+        }
+        this.width = width;
+        this.height = height;
+        pixels = new char[width * height];
+        Workers.fill(pixels, Canvas.BLANK);
+    }
+
+    public char[] getPixels() {
+        return pixels;
+    }
+
+    @Override
+    public int getWidth() {
+        return width;
+    }
+
+    @Override
+    public int getHeight() {
+        return height;
+    }
+
+    @Override
+    public char get(int row, int col) {
+        return pixels[row * width + col];
+    }
+
+    @Override
+    public void set(int row, int col, char c) {
+        pixels[row * width + col] = c;
+    }
+
+    @Override
+    public void fill(char c) {
+        Workers.fill(pixels, c);
+    }
+
+    @Override
+    public void fillSpan(int row, int from, int to, char c) {
+        int base = row * width;
+        Arrays.fill(pixels, base + from, base + to + 1, c);
+    }
+
+    @Override
+    public boolean paintSpan(int row, int from, int to, char c) {
+        int base = row * width;
+        int i = base + from;
+        int end = base + to + 1;
+        boolean changed = false;
+        while (i < end) {
+            if (pixels[i] != Canvas.BLANK) {
+                i++;
+                continue;
+            }
+            int start = i;
+            while (i < end && pixels[i] == Canvas.BLANK) {
+                i++;
+            }
+            Arrays.fill(pixels, start, i, c);
+            changed = true;
+        }
+        return changed;
+    }
+
+    @Override
+    public int nextBlank(int row, int from, int to) {
+        int base = row * width;
+        int i = from;
+        while (i <= to && pixels[base + i] != Canvas.BLANK) {
+            i++;
+        }
+        return i;
+    }
+
+    @Override
+    public int nextPainted(int row, int from, int to) {
+        int base = row * width;
+        int i = from;
+        while (i <= to && pixels[base + i] == Canvas.BLANK) {
+            i++;
+        }
+        return i;
+    }
+
+    @Override
+    public int prevPainted(int row, int from, int to) {
+        int base = row * width;
+        int i = to;
+        while (i >= from && pixels[base + i] == Canvas.BLANK) {
+            i--;
+        }
+        return i;
+    }
+
+    @Override
+    public int runEnd(int row, int from, int to) {
+        int base = row * width;
+        char c = pixels[base + from];
+        int i = from + 1;
+        while (i <= to && pixels[base + i] == c) {
+            i++;
+        }
+        return i;
+    }
+
+    @Override
+    public void copySpan(int row, int from, int to, char[] dest, int offset) {
+        System.arraycopy(pixels, row * width + from, dest, offset, to - from + 1);
+    }
+
+    @Override
+    public void writeSpan(int row, int from, int to, char[] src, int offset) {
+        System.arraycopy(src, offset, pixels, row * width + from, to - from + 1);
+    }
+
+    @Override
+    public long memoryBytes() {
+        return 2L * pixels.length;
+    }
+}
@@ -0,0 +1,331 @@
+package org.canvas.lonell.entity;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Stores every cell as a small index into a table of the characters the canvas has used, either
+ * one byte per cell or, in packed mode, four bits per cell with each row padded to a whole byte so
+ * different rows never share a byte and can be written concurrently. Index 0 is always the blank.
+ * A packed canvas that needs a 17th colour is widened to one byte per cell, and one that needs a
+ * 257th falls back to a {@link FlatStorage}; either way the canvas API is unchanged.
+ */
+public class IndexedStorage implements CanvasStorage {
+
+    private final int width;
+    private final int height;
+    private final int[] ascii = new int[128];
+    private final Map<Character, Integer> others = new HashMap<>();
+    private final char[] colours = new char[256];
+    private int count = 1;
+    private volatile Cells cells;
+    private volatile FlatStorage flat;
+
+    /**
+     * Creates a canvas storing {@code bits} (4 or 8) per cell.
+     */
+    public IndexedStorage(int width, int height, int bits) {
+        if ((long) width * height > FlatStorage.MAX_CELLS) {
+            throw new IllegalArgumentException("Canvas is too large for indexed storage: " + width + "x" + height);
+        }
+        this.width = width;
+        this.height = height;
+        Arrays.fill(ascii, -1);
+        ascii[Canvas.BLANK] = 0;
+        colours[0] = Canvas.BLANK;
+        cells = new Cells(bits, width, height);
+    }
+
+    /**
+     * Returns the bits stored per cell: 4, 8, or 16 once the storage has fallen back to chars.
+     */
+    public int getBits() {
+        Cells c = cells;
+        return c == null ? 16 : c.bits;
+    }
+
+    @Override
+    public int getWidth() {
+        return width;
+    }
+
+    @Override
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Returns the index of {@code c}, adding it to the table if needed. Afterwards {@link #cells}
+     * may have been widened or replaced by {@link #flat}, so callers read them only after this.
+     */
+    private int indexOf(char c) {
+        if (c < ascii.length) {
+            int index = ascii[c];
+            if (index >= 0) {
+                return index;
+            }
+        }
+        return add(c);
+    }
+
+    private synchronized int add(char c) {
+        Integer known = c < ascii.length ? (ascii[c] >= 0 ? Integer.valueOf(ascii[c]) : null) : others.get(c);
+        if (known != null) {
+            return known;
+        }
+        Cells current = cells;
+        if (current == null) {
+            return -1;
+        }
+        if (count == 1 << current.bits) {
+            if (current.bits == 4) {
+                cells = current.widen(width, height);
+            } else {
+                FlatStorage storage = new FlatStorage(width, height);
+                char[] row = new char[width];
+                for (int r = 0; r < height; r++) {
+                    copySpan(current, r, 0, width - 1, row, 0);
+                    storage.writeSpan(r, 0, width - 1, row, 0);
+                }
+                flat = storage;
+                cells = null;
+                return -1;
+            }
+        }
+        int index = count++;
+        colours[index] = c;
+        if (c < ascii.length) {
+            ascii[c] = index;
+        } else {
+            others.put(c, index);
+        }
+        return index;
+    }
+
+    @Override
+    public char get(int row, int col) {
+        Cells c = cells;
+        return c == null ? flat.get(row, col) : colours[c.get(row, col)];
+    }
+
+    @Override
+    public void set(int row, int col, char c) {
+        int index = indexOf(c);
+        Cells current = cells;
+        if (current == null) {
+            flat.set(row, col, c);
+        } else {
+            current.fill(row, col, col, index);
+        }
+    }
+
+    @Override
+    public void fill(char c) {
+        int index = indexOf(c);
+        Cells current = cells;
+        if (current == null) {
+            flat.fill(c);
+        } else {
+            Arrays.fill(current.bytes, current.bits == 4 ? (byte) (index | index << 4) : (byte) index);
+        }
+    }
+
+    @Override
+    public void fillSpan(int row, int from, int to, char c) {
+        int index = indexOf(c);
+        Cells current = cells;
+        if (current == null) {
+            flat.fillSpan(row, from, to, c);
+        } else {
+            current.fill(row, from, to, index);
+        }
+    }
+
+    @Override
+    public boolean paintSpan(int row, int from, int to, char c) {
+        if (c == Canvas.BLANK) {
+            return false;
+        }
+        int index = indexOf(c);
+        Cells current = cells;
+        if (current == null) {
+            return flat.paintSpan(row, from, to, c);
+        }
+        boolean changed = false;
+        int col = current.nextBlank(row, from, to);
+        while (col <= to) {
+            int end = current.nextPainted(row, col, to);
+            current.fill(row, col, end - 1, index);
+            changed = true;
+            col = current.nextBlank(row, end, to);
+        }
+        return changed;
+    }
+
+    @Override
+    public int nextBlank(int row, int from, int to) {
+        Cells c = cells;
+        return c == null ? flat.nextBlank(row, from, to) : c.nextBlank(row, from, to);
+    }
+
+    @Override
+    public int nextPainted(int row, int from, int to) {
+        Cells c = cells;
+        return c == null ? flat.nextPainted(row, from, to) : c.nextPainted(row, from, to);
+    }
+
+    @Override
+    public int prevPainted(int row, int from, int to) {
+        Cells c = cells;
+        if (c == null) {
+            return flat.prevPainted(row, from, to);
+        }
+        int col = to;
+        while (col >= from && c.get(row, col) == 0) {
+            col--;
+        }
+        return col;
+    }
+
+    @Override
+    public int runEnd(int row, int from, int to) {
+        Cells c = cells;
+        if (c == null) {
+            return flat.runEnd(row, from, to);
+        }
+        int index = c.get(row, from);
+        int col = from + 1;
+        while (col <= to && c.get(row, col) == index) {
+            col++;
+        }
+        return col;
+    }
+
+    @Override
+    public void copySpan(int row, int from, int to, char[] dest, int offset) {
+        Cells c = cells;
+        if (c == null) {
+            flat.copySpan(row, from, to, dest, offset);
+        } else {
+            copySpan(c, row, from, to, dest, offset);
+        }
+    }
+
+    private void copySpan(Cells c, int row, int from, int to, char[] dest, int offset) {
+        for (int col = from; col <= to; col++) {
+            dest[offset + col - from] = colours[c.get(row, col)];
+        }
+    }
+
+    @Override
+    public void writeSpan(int row, int from, int to, char[] src, int offset) {
+        char last = src[offset];
+        int index = indexOf(last);
+        for (int i = offset + 1; i <= offset + to - from; i++) {
+            if (src[i] != last) {
+                last = src[i];
+                indexOf(last);
+            }
+        }
+        Cells current = cells;
+        if (current == null) {
+            flat.writeSpan(row, from, to, src, offset);
+            return;
+        }
+        last = src[offset];
+        for (int col = from; col <= to; col++) {
+            char c = src[offset + col - from];
+            if (c != last) {
+                last = c;
+                index = indexOf(c);
+            }
+            current.fill(row, col, col, index);
+        }
+    }
+
+    @Override
+    public long memoryBytes() {
+        Cells c = cells;
+        return c == null ? flat.memoryBytes() : c.bytes.length;
+    }
+
+    /**
+     * The packed cell indexes; replaced as a whole when the storage widens.
+     */
+    private static final class Cells {
+        final int bits;
+        final int stride;
+        final byte[] bytes;
+
+        Cells(int bits, int width, int height) {
+            this.bits = bits;
+            stride = bits == 4 ? (width + 1) >> 1 : width;
+            bytes = new byte[stride * height];
+        }
+
+        Cells widen(int width, int height) {
+            Cells wide = new Cells(8, width, height);
+            for (int row = 0; row < height; row++) {
+                for (int col = 0; col < width; col++) {
+                    wide.bytes[row * width + col] = (byte) get(row, col);
+                }
+            }
+            return wide;
+        }
+
+        int get(int row, int col) {
+            if (bits == 8) {
+                return bytes[row * stride + col] & 0xff;
+            }
+            int b = bytes[row * stride + (col >> 1)];
+            return (col & 1) == 0 ? b & 0xf : (b >> 4) & 0xf;
+        }
+
+        void fill(int row, int from, int to, int index) {
+            int base = row * stride;
+            if (bits == 8) {
+                Arrays.fill(bytes, base + from, base + to + 1, (byte) index);
+                return;
+            }
+            if ((from & 1) == 1 && from <= to) {
+                setNibble(base + (from >> 1), true, index);
+                from++;
+            }
+            if ((to & 1) == 0 && from <= to) {
+                setNibble(base + (to >> 1), false, index);
+                to--;
+            }
+            if (from < to) {
+                Arrays.fill(bytes, base + (from >> 1), base + (to >> 1) + 1, (byte) (index | index << 4));
+            }
+        }
+
+        private void setNibble(int i, boolean high, int index) {
+            bytes[i] = high ? (byte) ((bytes[i] & 0x0f) | index << 4) : (byte) ((bytes[i] & 0xf0) | index);
+        }
+
+        int nextBlank(int row, int from, int to) {
+            int col = from;
+            while (col <= to && get(row, col) != 0) {
+                col++;
+            }
+            return col;
+        }
+
+        int nextPainted(int row, int from, int to) {
+            int col = from;
+            if (bits == 8) {
+                int base = row * stride;
+                while (col <= to && bytes[base + col] == 0) {
+                    col++;
+                }
+                return col;
+            }
+            while (col <= to && get(row, col) == 0) {
+                col++;
+            }
+            return col;
+        }
+    }
+}
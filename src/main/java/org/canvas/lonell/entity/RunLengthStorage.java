@@ -0,0 +1,275 @@
+package org.canvas.lonell.entity;
+
+import java.util.Arrays;
+
+/**
+ * Stores every row as a list of runs of equal cells, kept as the exclusive end column and the cell
+ * of each run. Blank rows hold no runs at all. Spans are written by splicing runs, so memory and
+ * the cost of line, fill and render operations follow the number of runs rather than the width.
+ * Rows are independent, so different rows may be written concurrently.
+ */
+public class RunLengthStorage implements CanvasStorage {
+
+    private final Row[] rows;
+    private final int width;
+    private final int height;
+
+    public RunLengthStorage(int width, int height) {
+        this.width = width;
+        this.height = height;
+        rows = new Row[height];
+    }
+
+    /**
+     * Returns the number of runs in {@code row}.
+     */
+    public int getRuns(int row) {
+        return rows[row] == null ? 1 : rows[row].count;
+    }
+
+    @Override
+    public int getWidth() {
+        return width;
+    }
+
+    @Override
+    public int getHeight() {
+        return height;
+    }
+
+    @Override
+    public char get(int row, int col) {
+        Row r = rows[row];
+        return r == null ? Canvas.BLANK : r.colours[r.find(col)];
+    }
+
+    @Override
+    public void set(int row, int col, char c) {
+        fillSpan(row, col, col, c);
+    }
+
+    @Override
+    public void fill(char c) {
+        for (int i = 0; i < height; i++) {
+            rows[i] = c == Canvas.BLANK ? null : new Row(width, c);
+        }
+    }
+
+    @Override
+    public void fillSpan(int row, int from, int to, char c) {
+        Row r = rows[row];
+        if (r == null) {
+            if (c == Canvas.BLANK) {
+                return;
+            }
+            r = new Row(width, Canvas.BLANK);
+            rows[row] = r;
+        }
+        r.splice(from, to + 1, c);
+        if (r.count == 1 && r.colours[0] == Canvas.BLANK) {
+            rows[row] = null;
+        }
+    }
+
+    @Override
+    public boolean paintSpan(int row, int from, int to, char c) {
+        if (c == Canvas.BLANK) {
+            return false;
+        }
+        boolean changed = false;
+        int col = nextBlank(row, from, to);
+        while (col <= to) {
+            int end = nextPainted(row, col, to);
+            fillSpan(row, col, end - 1, c);
+            changed = true;
+            col = nextBlank(row, end, to);
+        }
+        return changed;
+    }
+
+    @Override
+    public int nextBlank(int row, int from, int to) {
+        Row r = rows[row];
+        if (r == null) {
+            return from;
+        }
+        for (int k = r.find(from); k < r.count; k++) {
+            int start = k == 0 ? 0 : r.ends[k - 1];
+            if (start > to) {
+                break;
+            }
+            if (r.colours[k] == Canvas.BLANK) {
+                return Math.max(start, from);
+            }
+        }
+        return to + 1;
+    }
+
+    @Override
+    public int nextPainted(int row, int from, int to) {
+        Row r = rows[row];
+        if (r == null) {
+            return to + 1;
+        }
+        for (int k = r.find(from); k < r.count; k++) {
+            int start = k == 0 ? 0 : r.ends[k - 1];
+            if (start > to) {
+                break;
+            }
+            if (r.colours[k] != Canvas.BLANK) {
+                return Math.max(start, from);
+            }
+        }
+        return to + 1;
+    }
+
+    @Override
+    public int prevPainted(int row, int from, int to) {
+        Row r = rows[row];
+        if (r == null) {
+            return from - 1;
+        }
+        for (int k = r.find(to); k >= 0; k--) {
+            if (r.ends[k] <= from) {
+                break;
+            }
+            if (r.colours[k] != Canvas.BLANK) {
+                return Math.min(r.ends[k] - 1, to);
+            }
+        }
+        return from - 1;
+    }
+
+    @Override
+    public int runEnd(int row, int from, int to) {
+        Row r = rows[row];
+        if (r == null) {
+            return to + 1;
+        }
+        return Math.min(r.ends[r.find(from)], to + 1);
+    }
+
+    @Override
+    public void copySpan(int row, int from, int to, char[] dest, int offset) {
+        Row r = rows[row];
+        if (r == null) {
+            Arrays.fill(dest, offset, offset + to - from + 1, Canvas.BLANK);
+            return;
+        }
+        int col = from;
+        for (int k = r.find(from); col <= to; k++) {
+            int end = Math.min(r.ends[k], to + 1);
+            Arrays.fill(dest, offset + col - from, offset + end - from, r.colours[k]);
+            col = end;
+        }
+    }
+
+    @Override
+    public void writeSpan(int row, int from, int to, char[] src, int offset) {
+        int col = from;
+        while (col <= to) {
+            char c = src[offset + col - from];
+            int end = col + 1;
+            while (end <= to && src[offset + end - from] == c) {
+                end++;
+            }
+            fillSpan(row, col, end - 1, c);
+            col = end;
+        }
+    }
+
+    @Override
+    public long memoryBytes() {
+        long bytes = 8L * rows.length;
+        for (Row r : rows) {
+            if (r != null) {
+                bytes += 6L * r.ends.length;
+            }
+        }
+        return bytes;
+    }
+
+    private static final class Row {
+        int[] ends;
+        char[] colours;
+        int count;
+
+        Row(int width, char c) {
+            ends = new int[]{width};
+            colours = new char[]{c};
+            count = 1;
+        }
+
+        /**
+         * Returns the index of the run containing {@code col}.
+         */
+        int find(int col) {
+            int low = 0;
+            int high = count - 1;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (ends[mid] > col) {
+                    high = mid;
+                } else {
+                    low = mid + 1;
+                }
+            }
+            return low;
+        }
+
+        /**
+         * Replaces columns {@code from} (inclusive) to {@code end} (exclusive) with one run of
+         * {@code c}, merging it with equal neighbours.
+         */
+        void splice(int from, int end, char c) {
+            int first = find(from);
+            int last = find(end - 1);
+            int runStart = first == 0 ? 0 : ends[first - 1];
+
+            boolean left = runStart < from && colours[first] != c;
+            boolean right = ends[last] > end && colours[last] != c;
+            int leftEnd = from;
+            int rightEnd = ends[last];
+            char leftColour = colours[first];
+            char rightColour = colours[last];
+
+            if (!left && runStart < from) {
+                from = runStart;
+            }
+            if (!right) {
+                end = ends[last];
+            }
+            if (!left && first > 0 && runStart == from && colours[first - 1] == c) {
+                first--;
+            }
+            if (!right && last + 1 < count && colours[last + 1] == c) {
+                last++;
+                end = ends[last];
+            }
+
+            int added = (left ? 1 : 0) + 1 + (right ? 1 : 0);
+            int removed = last - first + 1;
+            int newCount = count + added - removed;
+            if (newCount > ends.length) {
+                int capacity = Math.max(newCount, ends.length * 2);
+                ends = Arrays.copyOf(ends, capacity);
+                colours = Arrays.copyOf(colours, capacity);
+            }
+            System.arraycopy(ends, last + 1, ends, first + added, count - last - 1);
+            System.arraycopy(colours, last + 1, colours, first + added, count - last - 1);
+
+            int k = first;
+            if (left) {
+                ends[k] = leftEnd;
+                colours[k++] = leftColour;
+            }
+            ends[k] = end;
+            colours[k++] = c;
+            if (right) {
+                ends[k] = rightEnd;
+                colours[k] = rightColour;
+            }
+            count = newCount;
+        }
+    }
+}
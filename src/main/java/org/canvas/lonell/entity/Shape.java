@@ -0,0 +1,169 @@
+package org.canvas.lonell.entity;
+
+/**
+ * A shape kept in a {@link DisplayList}: a line of any slope, or a rectangle outline, in 0-based
+ * inclusive inner coordinates. Shapes paint only blank cells, like the immediate-mode commands, so
+ * rasterising them region by region in drawing order gives the same cells as drawing them up front.
+ * A line covers, on each row it crosses, one contiguous run of columns; the run of any row is
+ * computed directly rather than by stepping from one end, so a line can be painted, clipped or
+ * tested against a region in time proportional to the rows involved.
+ */
+public final class Shape {
+
+    public enum Kind {
+        LINE, RECTANGLE
+    }
+
+    private final Kind kind;
+    private final int top;
+    private final int left;
+    private final int bottom;
+    private final int right;
+    private final int startCol;
+    private final int endCol;
+    private final char colour;
+    long order;
+    SpanRecorder recorder;
+
+    /**
+     * Creates a rectangle with the given corners, or a line between the two given end points.
+     */
+    public Shape(Kind kind, int row1, int col1, int row2, int col2, char colour) {
+        this.kind = kind;
+        this.top = Math.min(row1, row2);
+        this.left = Math.min(col1, col2);
+        this.bottom = Math.max(row1, row2);
+        this.right = Math.max(col1, col2);
+        this.startCol = row1 <= row2 ? col1 : col2;
+        this.endCol = row1 <= row2 ? col2 : col1;
+        this.colour = colour;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public int getTop() {
+        return top;
+    }
+
+    public int getLeft() {
+        return left;
+    }
+
+    public int getBottom() {
+        return bottom;
+    }
+
+    public int getRight() {
+        return right;
+    }
+
+    public char getColour() {
+        return colour;
+    }
+
+    /**
+     * Whether the bounding box of this shape overlaps the given region.
+     */
+    public boolean intersects(int top, int left, int bottom, int right) {
+        return this.top <= bottom && this.bottom >= top && this.left <= right && this.right >= left;
+    }
+
+    /**
+     * Whether this shape paints any cell of the given region. Unlike {@link #intersects}, a region
+     * lying wholly inside a rectangle's outline, or beside a sloping line, does not count.
+     */
+    public boolean crosses(int top, int left, int bottom, int right) {
+        if (!intersects(top, left, bottom, right)) {
+            return false;
+        }
+        if (kind == Kind.RECTANGLE) {
+            return top <= this.top || bottom >= this.bottom || left <= this.left || right >= this.right;
+        }
+        int first = Math.max(top, this.top);
+        int last = Math.min(bottom, this.bottom);
+        return Math.min(runFrom(first), runFrom(last)) <= right && Math.max(runTo(first), runTo(last)) >= left;
+    }
+
+    /**
+     * Whether this shape passes through the cell at {@code row}, {@code col}.
+     */
+    public boolean covers(int row, int col) {
+        return crosses(row, col, row, col);
+    }
+
+    /**
+     * Returns the first column this line covers on {@code row}.
+     */
+    int runFrom(int row) {
+        return Math.min(col(row, false), col(row, true));
+    }
+
+    /**
+     * Returns the last column this line covers on {@code row}.
+     */
+    int runTo(int row) {
+        return Math.max(col(row, false), col(row, true));
+    }
+
+    /**
+     * Returns the first or last column of the run on {@code row}. Cells are those of the midpoint
+     * line: a shallow line covers, for every column, the row nearest to it, and a steep line
+     * covers, for every row, the nearest column, ties rounding away from the start.
+     */
+    private int col(int row, boolean last) {
+        if (top == bottom) {
+            return last ? endCol : startCol;
+        }
+        long dx = Math.abs(endCol - startCol);
+        long dy = bottom - top;
+        long r = row - top;
+        long step;
+        if (dx <= dy) {
+            step = (2 * r * dx + dy) / (2 * dy);
+        } else if (last) {
+            step = r == dy ? dx : ((2 * r + 1) * dx + 2 * dy - 1) / (2 * dy) - 1;
+        } else {
+            step = r == 0 ? 0 : ((2 * r - 1) * dx + 2 * dy - 1) / (2 * dy);
+        }
+        return endCol >= startCol ? startCol + (int) step : startCol - (int) step;
+    }
+
+    /**
+     * Paints the part of this shape inside the given region onto {@code storage}, handing each span
+     * to the recorder first.
+     */
+    void rasterise(CanvasStorage storage, int regionTop, int regionLeft, int regionBottom, int regionRight) {
+        int first = Math.max(top, regionTop);
+        int last = Math.min(bottom, regionBottom);
+        if (kind == Kind.LINE) {
+            for (int row = first; row <= last; row++) {
+                paintSpan(storage, row, Math.max(runFrom(row), regionLeft), Math.min(runTo(row), regionRight));
+            }
+            return;
+        }
+        for (int row = first; row <= last; row++) {
+            if (row == top || row == bottom) {
+                paintSpan(storage, row, Math.max(left, regionLeft), Math.min(right, regionRight));
+            } else {
+                if (left >= regionLeft && left <= regionRight) {
+                    paintSpan(storage, row, left, left);
+                }
+                if (right >= regionLeft && right <= regionRight) {
+                    paintSpan(storage, row, right, right);
+                }
+            }
+        }
+    }
+
+    private void paintSpan(CanvasStorage storage, int row, int from, int to) {
+        if (from > to) {
+            return;
+        }
+        if (recorder != null) {
+            recorder.record(storage, row, from, to);
+        }
+        storage.paintSpan(row, from, to, colour);
+    }
+}
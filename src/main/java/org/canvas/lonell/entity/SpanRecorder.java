@@ -0,0 +1,9 @@
+package org.canvas.lonell.entity;
+
+/**
+ * Receives the before-image of a span just before it is overwritten.
+ */
+public interface SpanRecorder {
+
+    void record(CanvasStorage storage, int row, int from, int to);
+}
@@ -0,0 +1,55 @@
+package org.canvas.lonell.entity;
+
+/**
+ * The cell storage backends a canvas can be created with.
+ */
+public enum StorageType {
+    FLAT {
+        @Override
+        public CanvasStorage create(int width, int height) {
+            return new FlatStorage(width, height);
+        }
+    },
+    TILED {
+        @Override
+        public CanvasStorage create(int width, int height) {
+            return new TiledStorage(width, height);
+        }
+    },
+    RLE {
+        @Override
+        public CanvasStorage create(int width, int height) {
+            return new RunLengthStorage(width, height);
+        }
+    },
+    INDEXED {
+        @Override
+        public CanvasStorage create(int width, int height) {
+            return new IndexedStorage(width, height, 8);
+        }
+    },
+    PACKED {
+        @Override
+        public CanvasStorage create(int width, int height) {
+            return new IndexedStorage(width, height, 4);
+        }
+    };
+
+    /**
+     * Canvases with more cells than this are created tiled when no backend is chosen explicitly.
+     */
+    public static final long FLAT_LIMIT = 1L << 24;
+
+    public abstract CanvasStorage create(int width, int height);
+
+    /**
+     * Returns the largest number of cells this backend can hold.
+     */
+    public long getMaxCells() {
+        return this == TILED || this == RLE ? Long.MAX_VALUE : FlatStorage.MAX_CELLS;
+    }
+
+    public static StorageType forSize(int width, int height) {
+        return (long) width * height <= FLAT_LIMIT ? FLAT : TILED;
+    }
+}
@@ -0,0 +1,256 @@
+package org.canvas.lonell.entity;
+
+import java.util.Arrays;
+
+/**
+ * Sparse storage made of fixed-size square tiles. Every tile starts out as one shared, read-only
+ * blank tile and gets its own buffer on the first write that changes it, so memory follows the
+ * painted area rather than the canvas dimensions.
+ */
+public class TiledStorage implements CanvasStorage {
+
+    public static final int SHIFT = 6;
+    public static final int SIZE = 1 << SHIFT;
+    private static final int MASK = SIZE - 1;
+    private static final char[] BLANK_TILE = blankTile();
+
+    private final char[][] tiles;
+    private final int width;
+    private final int height;
+    private final int tilesX;
+    private int allocated;
+
+    public TiledStorage(int width, int height) {
+        this.width = width;
+        this.height = height;
+        tilesX = (int) (((long) width + MASK) >> SHIFT);
+        long count = (long) tilesX * (int) (((long) height + MASK) >> SHIFT);
+        if (count > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Canvas is too large for tiled storage: " + width + "x" + height);
+        }
+        tiles = new char[(int) count][];
+        Arrays.fill(tiles, BLANK_TILE);
+    }
+
+    private static char[] blankTile() {
+        char[] tile = new char[SIZE * SIZE];
+        Arrays.fill(tile, Canvas.BLANK);
+        return tile;
+    }
+
+    private int tileIndex(int row, int col) {
+        return (row >> SHIFT) * tilesX + (col >> SHIFT);
+    }
+
+    private char[] writable(int index) {
+        char[] tile = tiles[index];
+        if (tile == BLANK_TILE) {
+            tile = BLANK_TILE.clone();
+            tiles[index] = tile;
+            allocated++;
+        }
+        return tile;
+    }
+
+    public int getAllocatedTiles() {
+        return allocated;
+    }
+
+    @Override
+    public int getWidth() {
+        return width;
+    }
+
+    @Override
+    public int getHeight() {
+        return height;
+    }
+
+    @Override
+    public char get(int row, int col) {
+        return tiles[tileIndex(row, col)][((row & MASK) << SHIFT) | (col & MASK)];
+    }
+
+    @Override
+    public void set(int row, int col, char c) {
+        int index = tileIndex(row, col);
+        if (c == Canvas.BLANK && tiles[index] == BLANK_TILE) {
+            return;
+        }
+        writable(index)[((row & MASK) << SHIFT) | (col & MASK)] = c;
+    }
+
+    @Override
+    public void fill(char c) {
+        if (c == Canvas.BLANK) {
+            Arrays.fill(tiles, BLANK_TILE);
+            allocated = 0;
+            return;
+        }
+        for (int i = 0; i < tiles.length; i++) {
+            Arrays.fill(writable(i), c);
+        }
+    }
+
+    @Override
+    public void fillSpan(int row, int from, int to, char c) {
+        int offset = (row & MASK) << SHIFT;
+        int col = from;
+        while (col <= to) {
+            int end = Math.min(to, col | MASK);
+            int index = tileIndex(row, col);
+            if (c != Canvas.BLANK || tiles[index] != BLANK_TILE) {
+                Arrays.fill(writable(index), offset + (col & MASK), offset + (end & MASK) + 1, c);
+            }
+            col = end + 1;
+        }
+    }
+
+    @Override
+    public boolean paintSpan(int row, int from, int to, char c) {
+        if (c == Canvas.BLANK) {
+            return false;
+        }
+        int offset = (row & MASK) << SHIFT;
+        boolean changed = false;
+        int col = from;
+        while (col <= to) {
+            int end = Math.min(to, col | MASK);
+            int index = tileIndex(row, col);
+            if (tiles[index] == BLANK_TILE) {
+                Arrays.fill(writable(index), offset + (col & MASK), offset + (end & MASK) + 1, c);
+                changed = true;
+            } else {
+                char[] tile = tiles[index];
+                for (int i = offset + (col & MASK), last = offset + (end & MASK); i <= last; i++) {
+                    if (tile[i] == Canvas.BLANK) {
+                        tile[i] = c;
+                        changed = true;
+                    }
+                }
+            }
+            col = end + 1;
+        }
+        return changed;
+    }
+
+    @Override
+    public int nextBlank(int row, int from, int to) {
+        int offset = (row & MASK) << SHIFT;
+        int col = from;
+        while (col <= to) {
+            int end = Math.min(to, col | MASK);
+            char[] tile = tiles[tileIndex(row, col)];
+            if (tile == BLANK_TILE) {
+                return col;
+            }
+            for (; col <= end; col++) {
+                if (tile[offset + (col & MASK)] == Canvas.BLANK) {
+                    return col;
+                }
+            }
+        }
+        return col;
+    }
+
+    @Override
+    public int nextPainted(int row, int from, int to) {
+        int offset = (row & MASK) << SHIFT;
+        int col = from;
+        while (col <= to) {
+            int end = Math.min(to, col | MASK);
+            char[] tile = tiles[tileIndex(row, col)];
+            if (tile == BLANK_TILE) {
+                col = end + 1;
+                continue;
+            }
+            for (; col <= end; col++) {
+                if (tile[offset + (col & MASK)] != Canvas.BLANK) {
+                    return col;
+                }
+            }
+        }
+        return col;
+    }
+
+    @Override
+    public int prevPainted(int row, int from, int to) {
+        int offset = (row & MASK) << SHIFT;
+        int col = to;
+        while (col >= from) {
+            int start = Math.max(from, col & ~MASK);
+            char[] tile = tiles[tileIndex(row, col)];
+            if (tile == BLANK_TILE) {
+                col = start - 1;
+                continue;
+            }
+            for (; col >= start; col--) {
+                if (tile[offset + (col & MASK)] != Canvas.BLANK) {
+                    return col;
+                }
+            }
+        }
+        return col;
+    }
+
+    @Override
+    public int runEnd(int row, int from, int to) {
+        int offset = (row & MASK) << SHIFT;
+        char c = get(row, from);
+        int col = from + 1;
+        while (col <= to) {
+            int end = Math.min(to, col | MASK);
+            char[] tile = tiles[tileIndex(row, col)];
+            if (tile == BLANK_TILE && c == Canvas.BLANK) {
+                col = end + 1;
+                continue;
+            }
+            for (; col <= end; col++) {
+                if (tile[offset + (col & MASK)] != c) {
+                    return col;
+                }
+            }
+        }
+        return col;
+    }
+
+    @Override
+    public void copySpan(int row, int from, int to, char[] dest, int offset) {
+        int rowOffset = (row & MASK) << SHIFT;
+        int col = from;
+        while (col <= to) {
+            int end = Math.min(to, col | MASK);
+            System.arraycopy(tiles[tileIndex(row, col)], rowOffset + (col & MASK), dest, offset + col - from, end - col + 1);
+            col = end + 1;
+        }
+    }
+
+    @Override
+    public void writeSpan(int row, int from, int to, char[] src, int offset) {
+        int rowOffset = (row & MASK) << SHIFT;
+        int col = from;
+        while (col <= to) {
+            int end = Math.min(to, col | MASK);
+            int index = tileIndex(row, col);
+            int start = offset + col - from;
+            if (tiles[index] != BLANK_TILE || !isBlank(src, start, start + end - col)) {
+                System.arraycopy(src, start, writable(index), rowOffset + (col & MASK), end - col + 1);
+            }
+            col = end + 1;
+        }
+    }
+
+    private static boolean isBlank(char[] src, int from, int to) {
+        for (int i = from; i <= to; i++) {
+            if (src[i] != Canvas.BLANK) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public long memoryBytes() {
+        return 8L * tiles.length + 2L * SIZE * SIZE * (allocated + 1);
+    }
+}
@@ -0,0 +1,15 @@
+package org.canvas.lonell.fill;
+
+import org.canvas.lonell.entity.Canvas;
+
+/**
+ * Strategy used by the {@code B} command to flood the blank area connected to a cell.
+ */
+public interface FillEngine {
+
+    /**
+     * Fills the blank region connected to {@code (row, col)} with {@code c}. When the seed itself is
+     * not blank, the blank regions touching it are filled instead.
+     */
+    void fill(Canvas canvas, int row, int col, char c);
+}
@@ -0,0 +1,281 @@
+package org.canvas.lonell.fill;
+
+import org.canvas.lonell.entity.Canvas;
+import org.canvas.lonell.entity.CanvasStorage;
+import org.canvas.lonell.entity.TiledStorage;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Bucket fill for very large regions. The canvas is cut into horizontal stripes that are labelled in
+ * parallel on a {@link ForkJoinPool}: every blank run becomes a node and runs touching each other
+ * are merged with union-find. Labels are then joined across stripe borders and only the runs in the
+ * component of the seed are recoloured, again one stripe per task. The result is the same as
+ * {@link ScanlineFillEngine}, which is still used below {@code threshold} cells.
+ */
+public class ParallelFillEngine implements FillEngine {
+
+    private static final char BLANK = Canvas.BLANK;
+
+    private final ForkJoinPool pool;
+    private final FillEngine sequential;
+    private final long threshold;
+
+    public ParallelFillEngine(ForkJoinPool pool) {
+        this(pool, new ScanlineFillEngine(), 1L << 20);
+    }
+
+    public ParallelFillEngine(ForkJoinPool pool, FillEngine sequential, long threshold) {
+        this.pool = pool;
+        this.sequential = sequential;
+        this.threshold = threshold;
+    }
+
+    @Override
+    public void fill(Canvas canvas, int row, int col, char c) {
+        if (c == BLANK) {
+            return;
+        }
+        if ((long) canvas.getInnerWidth() * canvas.getInnerHeight() < threshold) {
+            sequential.fill(canvas, row, col, c);
+            return;
+        }
+
+        Stripe[] stripes = stripes(canvas);
+        pool.invoke(new StripeAction(canvas, stripes, 0, stripes.length, null, null, c));
+
+        int[] parent = merge(stripes);
+        int[] targets = new int[4];
+        int count = 0;
+        if (canvas.get(row, col) == BLANK) {
+            targets[count++] = find(parent, runAt(stripes, row, col));
+        } else {
+            int[][] neighbours = {{row + 1, col}, {row - 1, col}, {row, col + 1}, {row, col - 1}};
+            for (int[] n : neighbours) {
+                if (n[0] >= 1 && n[0] <= canvas.getInnerHeight() && n[1] >= 1 && n[1] <= canvas.getInnerWidth()
+                        && canvas.get(n[0], n[1]) == BLANK) {
+                    targets[count++] = find(parent, runAt(stripes, n[0], n[1]));
+                }
+            }
+        }
+        if (count == 0) {
+            return;
+        }
+
+        pool.invoke(new StripeAction(canvas, stripes, 0, stripes.length, parent, Arrays.copyOf(targets, count), c));
+
+        for (Stripe stripe : stripes) {
+            if (stripe.painted) {
+                canvas.markDirty(stripe.firstRow, stripe.lastRow);
+            }
+        }
+    }
+
+    /**
+     * Stripes are whole multiples of the tile height so that no two tasks ever write to the same
+     * tile.
+     */
+    private Stripe[] stripes(Canvas canvas) {
+        int height = canvas.getInnerHeight();
+        int parts = pool.getParallelism() * 4;
+        int rows = (height + parts - 1) / parts;
+        rows = Math.max(TiledStorage.SIZE, (rows + TiledStorage.SIZE - 1) / TiledStorage.SIZE * TiledStorage.SIZE);
+
+        List<Stripe> stripes = new ArrayList<>();
+        for (int first = 1; first <= height; first += rows) {
+            stripes.add(new Stripe(first, Math.min(height, first + rows - 1)));
+        }
+        return stripes.toArray(new Stripe[stripes.size()]);
+    }
+
+    private int[] merge(Stripe[] stripes) {
+        int total = 0;
+        for (Stripe stripe : stripes) {
+            stripe.offset = total;
+            total += stripe.size;
+        }
+
+        int[] parent = new int[total];
+        for (Stripe stripe : stripes) {
+            for (int i = 0; i < stripe.size; i++) {
+                parent[stripe.offset + i] = stripe.offset + Stripe.find(stripe.parent, i);
+            }
+        }
+
+        for (int s = 1; s < stripes.length; s++) {
+            Stripe above = stripes[s - 1];
+            Stripe below = stripes[s];
+            int p = above.rowStart[above.lastRow - above.firstRow];
+            int pEnd = above.size;
+            int q = 0;
+            int qEnd = below.rowStart[1];
+            for (; q < qEnd; q++) {
+                while (p < pEnd && above.runTo[p] < below.runFrom[q]) {
+                    p++;
+                }
+                for (int k = p; k < pEnd && above.runFrom[k] <= below.runTo[q]; k++) {
+                    union(parent, above.offset + k, below.offset + q);
+                }
+            }
+        }
+        return parent;
+    }
+
+    private int runAt(Stripe[] stripes, int row, int col) {
+        for (Stripe stripe : stripes) {
+            if (row < stripe.firstRow || row > stripe.lastRow) {
+                continue;
+            }
+            int end = stripe.rowStart[row - stripe.firstRow + 1];
+            for (int i = stripe.rowStart[row - stripe.firstRow]; i < end; i++) {
+                if (stripe.runFrom[i] <= col && col <= stripe.runTo[i]) {
+                    return stripe.offset + i;
+                }
+            }
+        }
+        throw new IllegalStateException("No blank run at " + col + "," + row);
+    }
+
+    private static int find(int[] parent, int i) {
+        while (parent[i] != i) {
+            i = parent[i];
+        }
+        return i;
+    }
+
+    private static void union(int[] parent, int a, int b) {
+        int rootA = find(parent, a);
+        int rootB = find(parent, b);
+        if (rootA != rootB) {
+            parent[Math.max(rootA, rootB)] = Math.min(rootA, rootB);
+        }
+    }
+
+    private static final class Stripe {
+        final int firstRow;
+        final int lastRow;
+        final int[] rowStart;
+        int[] runFrom = new int[16];
+        int[] runTo = new int[16];
+        int[] parent = new int[16];
+        int size;
+        int offset;
+        boolean painted;
+
+        Stripe(int firstRow, int lastRow) {
+            this.firstRow = firstRow;
+            this.lastRow = lastRow;
+            rowStart = new int[lastRow - firstRow + 2];
+        }
+
+        void label(Canvas canvas) {
+            int width = canvas.getInnerWidth();
+            int previous = 0;
+            for (int row = firstRow; row <= lastRow; row++) {
+                int start = size;
+                rowStart[row - firstRow] = start;
+                int p = previous;
+                int x = canvas.nextBlank(row, 1, width);
+                while (x <= width) {
+                    int to = canvas.nextPainted(row, x, width) - 1;
+                    int run = add(x, to);
+                    while (p < start && runTo[p] < x) {
+                        p++;
+                    }
+                    for (int k = p; k < start && runFrom[k] <= to; k++) {
+                        int rootA = find(parent, k);
+                        int rootB = find(parent, run);
+                        if (rootA != rootB) {
+                            parent[Math.max(rootA, rootB)] = Math.min(rootA, rootB);
+                        }
+                    }
+                    x = canvas.nextBlank(row, to + 1, width);
+                }
+                previous = start;
+            }
+            rowStart[lastRow - firstRow + 1] = size;
+        }
+
+        void paint(Canvas canvas, int[] global, int[] targets, char c) {
+            CanvasStorage storage = canvas.getStorage();
+            for (int row = firstRow; row <= lastRow; row++) {
+                int end = rowStart[row - firstRow + 1];
+                for (int i = rowStart[row - firstRow]; i < end; i++) {
+                    int root = ParallelFillEngine.find(global, offset + i);
+                    for (int target : targets) {
+                        if (root == target) {
+                            storage.fillSpan(row - 1, runFrom[i] - 1, runTo[i] - 1, c);
+                            painted = true;
+                            break;
+                        }
+                    }
+                }
+            }
+        }
+
+        private int add(int from, int to) {
+            if (size == runFrom.length) {
+                runFrom = Arrays.copyOf(runFrom, size * 2);
+                runTo = Arrays.copyOf(runTo, size * 2);
+                parent = Arrays.copyOf(parent, size * 2);
+            }
+            runFrom[size] = from;
+            runTo[size] = to;
+            parent[size] = size;
+            return size++;
+        }
+
+        static int find(int[] parent, int i) {
+            while (parent[i] != i) {
+                parent[i] = parent[parent[i]];
+                i = parent[i];
+            }
+            return i;
+        }
+    }
+
+    /**
+     * Labels (when {@code targets} is {@code null}) or paints a range of stripes, splitting the
+     * range in half until one stripe is left.
+     */
+    private static final class StripeAction extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Canvas canvas;
+        private final Stripe[] stripes;
+        private final int from;
+        private final int to;
+        private final int[] targets;
+        private final int[] parent;
+        private final char c;
+
+        StripeAction(Canvas canvas, Stripe[] stripes, int from, int to, int[] parent, int[] targets, char c) {
+            this.canvas = canvas;
+            this.stripes = stripes;
+            this.from = from;
+            this.to = to;
+            this.targets = targets;
+            this.parent = parent;
+            this.c = c;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new StripeAction(canvas, stripes, from, middle, parent, targets, c),
+                        new StripeAction(canvas, stripes, middle, to, parent, targets, c));
+                return;
+            }
+            if (targets == null) {
+                stripes[from].label(canvas);
+            } else {
+                stripes[from].paint(canvas, parent, targets, c);
+            }
+        }
+    }
+}
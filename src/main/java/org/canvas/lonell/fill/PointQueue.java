@@ -0,0 +1,57 @@
+package org.canvas.lonell.fill;
+
+import java.util.Arrays;
+
+/**
+ * Growable LIFO work list of cell coordinates packed into primitive longs. The backing array only
+ * ever grows, so a queue that is reused across fills stops allocating once it has reached the size
+ * the largest fill needed.
+ */
+public class PointQueue {
+
+    private long[] points;
+    private int size;
+
+    public PointQueue() {
+        this(64);
+    }
+
+    public PointQueue(int capacity) {
+        points = new long[Math.max(capacity, 1)];
+    }
+
+    public void push(int row, int col) {
+        if (size == points.length) {
+            points = Arrays.copyOf(points, points.length * 2);
+        }
+        points[size++] = pack(row, col);
+    }
+
+    public long pop() {
+        return points[--size];
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    public int capacity() {
+        return points.length;
+    }
+
+    public static long pack(int row, int col) {
+        return ((long) row << 32) | (col & 0xffffffffL);
+    }
+
+    public static int row(long point) {
+        return (int) (point >>> 32);
+    }
+
+    public static int col(long point) {
+        return (int) point;
+    }
+}
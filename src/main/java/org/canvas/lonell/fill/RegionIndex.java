@@ -0,0 +1,461 @@
+package org.canvas.lonell.fill;
+
+import org.canvas.lonell.entity.Canvas;
+import org.canvas.lonell.entity.CanvasStorage;
+import org.canvas.lonell.entity.DisplayList;
+
+import java.util.Arrays;
+
+/**
+ * Storage decorator that remembers the connected regions flood fills have found, so filling a
+ * region again recolours its recorded spans instead of searching for them. A region is a maximal
+ * set of 4-connected cells of one character, blank or painted, stored as its row runs together
+ * with its area and bounding box.
+ * <p>
+ * Every write passing through the index drops the regions it could have changed: those owning a
+ * written cell, and those next to one that may now join it. Lines and rectangles therefore split
+ * only the regions they cross, which are labelled again the next time a fill lands in them, while
+ * every other region stays labelled. Coordinates in the public methods are the canvas's 1-based
+ * ones; the canvas passed to them must write through this index.
+ */
+public class RegionIndex implements CanvasStorage {
+
+    private final CanvasStorage storage;
+    private final PointQueue seeds = new PointQueue();
+    private final Row[] rows;
+    private DisplayList list;
+    private Region busy;
+    private int regions;
+    private long spans;
+    private long labellings;
+
+    public RegionIndex(CanvasStorage storage) {
+        this.storage = storage;
+        this.rows = new Row[storage.getHeight()];
+    }
+
+    /**
+     * Returns the wrapped storage.
+     */
+    public CanvasStorage getStorage() {
+        return storage;
+    }
+
+    /**
+     * Names the display list drawing into this index, if any. Its shapes reach the index only
+     * when painted, so the shapes pending around a region are painted before the region is used.
+     */
+    public void setDisplayList(DisplayList list) {
+        this.list = list;
+    }
+
+    /**
+     * Returns the region containing the cell at {@code row}, {@code col}, labelling it first if no
+     * current region covers the cell.
+     */
+    public Region regionAt(Canvas canvas, int row, int col) {
+        Region region = lookup(row - 1, col - 1);
+        if (region != null && list != null) {
+            list.paint(region.top - 1, region.left - 1, region.bottom + 1, region.right + 1);
+            region = lookup(row - 1, col - 1);
+        }
+        return region != null ? region : label(canvas, row - 1, col - 1);
+    }
+
+    /**
+     * Paints every cell of the region containing {@code row}, {@code col} with {@code c}, through
+     * {@code canvas} so the change is journaled like any other. Unlike a flood fill this recolours
+     * painted regions as well as blank ones, and a region that is already labelled is not searched
+     * again.
+     */
+    public Region recolour(Canvas canvas, int row, int col, char c) {
+        Region region = regionAt(canvas, row, col);
+        if (region.colour == c) {
+            return region;
+        }
+        busy = region;
+        try {
+            for (int i = 0; i < region.spans; i++) {
+                canvas.fillRow(region.rows[i] + 1, region.froms[i] + 1, region.tos[i] + 1, c);
+            }
+        } finally {
+            busy = null;
+        }
+        region.colour = c;
+        if (touches(canvas, region, c)) {
+            invalidate(region);
+        }
+        return region;
+    }
+
+    /**
+     * Returns the number of regions currently labelled.
+     */
+    public int getRegions() {
+        return regions;
+    }
+
+    /**
+     * Returns how many regions have been labelled by searching the canvas.
+     */
+    public long getLabellings() {
+        return labellings;
+    }
+
+    private Region lookup(int row, int col) {
+        Row r = rows[row];
+        if (r == null) {
+            return null;
+        }
+        int i = r.find(col);
+        return i < r.count && r.starts[i] <= col ? r.regions[i] : null;
+    }
+
+    /**
+     * Finds the region around a cell span by span, like {@link ScanlineFillEngine} but following
+     * cells of the seed's character. A current region of the same character met on the way has
+     * been joined by a later write and is absorbed.
+     */
+    private Region label(Canvas canvas, int row, int col) {
+        char k = canvas.get(row + 1, col + 1);
+        int last = storage.getWidth() - 1;
+        Region region = new Region(k);
+        labellings++;
+        seeds.clear();
+        seeds.push(row, col);
+        busy = region;
+
+        try {
+            while (!seeds.isEmpty()) {
+                long seed = seeds.pop();
+                int r = PointQueue.row(seed);
+                int x = PointQueue.col(seed);
+                Region owner = lookup(r, x);
+                if (owner == region) {
+                    continue;
+                }
+                if (owner != null) {
+                    invalidate(owner);
+                }
+
+                int from = x;
+                if (k == Canvas.BLANK) {
+                    from = canvas.prevPainted(r + 1, 1, x + 1);
+                } else {
+                    while (from > 0 && canvas.get(r + 1, from) == k) {
+                        from--;
+                    }
+                }
+                int to = canvas.runEnd(r + 1, x + 1, last + 1) - 2;
+                add(region, r, from, to);
+
+                if (r > 0) {
+                    pushSpans(canvas, region, r - 1, from, to);
+                }
+                if (r < rows.length - 1) {
+                    pushSpans(canvas, region, r + 1, from, to);
+                }
+            }
+        } finally {
+            busy = null;
+        }
+        regions++;
+        return region;
+    }
+
+    private void pushSpans(Canvas canvas, Region region, int row, int from, int to) {
+        int x = from;
+        while (x <= to) {
+            int end = canvas.runEnd(row + 1, x + 1, to + 1) - 1;
+            if (canvas.get(row + 1, x + 1) == region.colour && lookup(row, x) != region) {
+                seeds.push(row, x);
+            }
+            x = end;
+        }
+    }
+
+    /**
+     * Whether a cell of {@code c} outside {@code region} borders it, in which case the region is
+     * no longer a whole component.
+     */
+    private boolean touches(Canvas canvas, Region region, char c) {
+        int last = storage.getWidth() - 1;
+        for (int i = 0; i < region.spans; i++) {
+            int row = region.rows[i];
+            int from = region.froms[i];
+            int to = region.tos[i];
+            if (from > 0 && canvas.get(row + 1, from) == c || to < last && canvas.get(row + 1, to + 2) == c) {
+                return true;
+            }
+            for (int r = row - 1; r <= row + 1; r += 2) {
+                if (r < 0 || r >= rows.length) {
+                    continue;
+                }
+                int x = from;
+                while (x <= to) {
+                    int end = canvas.runEnd(r + 1, x + 1, to + 1) - 1;
+                    if (canvas.get(r + 1, x + 1) == c && lookup(r, x) != region) {
+                        return true;
+                    }
+                    x = end;
+                }
+            }
+        }
+        return false;
+    }
+
+    private void add(Region region, int row, int from, int to) {
+        region.add(row, from, to);
+        Row r = rows[row];
+        if (r == null) {
+            r = rows[row] = new Row();
+        }
+        r.insert(from, to, region);
+        spans++;
+    }
+
+    private void invalidate(Region region) {
+        for (int i = 0; i < region.spans; i++) {
+            rows[region.rows[i]].remove(region.froms[i]);
+        }
+        spans -= region.spans;
+        region.spans = 0;
+        region.live = false;
+        regions--;
+    }
+
+    /**
+     * Drops the regions a write of {@code c} to the span could change: every region owning one of
+     * its cells, and every region of {@code c} next to it, or of any character for mixed writes.
+     */
+    private void written(int row, int from, int to, char c, boolean mixed) {
+        if (regions == 0) {
+            return;
+        }
+        invalidate(row, from, to, c, true);
+        invalidate(row, from - 1, from - 1, c, mixed);
+        invalidate(row, to + 1, to + 1, c, mixed);
+        invalidate(row - 1, from, to, c, mixed);
+        invalidate(row + 1, from, to, c, mixed);
+    }
+
+    private void invalidate(int row, int from, int to, char c, boolean any) {
+        if (row < 0 || row >= rows.length || rows[row] == null) {
+            return;
+        }
+        Row r = rows[row];
+        int i = r.find(from);
+        while (i < r.count && r.starts[i] <= to) {
+            Region region = r.regions[i];
+            if (region != busy && (any || region.colour == c)) {
+                invalidate(region);
+                i = r.find(from);
+            } else {
+                i++;
+            }
+        }
+    }
+
+    @Override
+    public int getWidth() {
+        return storage.getWidth();
+    }
+
+    @Override
+    public int getHeight() {
+        return storage.getHeight();
+    }
+
+    @Override
+    public char get(int row, int col) {
+        return storage.get(row, col);
+    }
+
+    @Override
+    public void set(int row, int col, char c) {
+        written(row, col, col, c, false);
+        storage.set(row, col, c);
+    }
+
+    @Override
+    public void fill(char c) {
+        for (Row r : rows) {
+            for (int i = 0; r != null && i < r.count; i++) {
+                r.regions[i].live = false;
+            }
+        }
+        Arrays.fill(rows, null);
+        regions = 0;
+        spans = 0;
+        storage.fill(c);
+    }
+
+    @Override
+    public void fillSpan(int row, int from, int to, char c) {
+        written(row, from, to, c, false);
+        storage.fillSpan(row, from, to, c);
+    }
+
+    @Override
+    public boolean paintSpan(int row, int from, int to, char c) {
+        written(row, from, to, c, false);
+        return storage.paintSpan(row, from, to, c);
+    }
+
+    @Override
+    public int nextBlank(int row, int from, int to) {
+        return storage.nextBlank(row, from, to);
+    }
+
+    @Override
+    public int nextPainted(int row, int from, int to) {
+        return storage.nextPainted(row, from, to);
+    }
+
+    @Override
+    public int prevPainted(int row, int from, int to) {
+        return storage.prevPainted(row, from, to);
+    }
+
+    @Override
+    public int runEnd(int row, int from, int to) {
+        return storage.runEnd(row, from, to);
+    }
+
+    @Override
+    public void copySpan(int row, int from, int to, char[] dest, int offset) {
+        storage.copySpan(row, from, to, dest, offset);
+    }
+
+    @Override
+    public void writeSpan(int row, int from, int to, char[] src, int offset) {
+        written(row, from, to, Canvas.BLANK, true);
+        storage.writeSpan(row, from, to, src, offset);
+    }
+
+    @Override
+    public long memoryBytes() {
+        return storage.memoryBytes() + spans * 24 + (long) regions * 64;
+    }
+
+    /**
+     * A labelled region. Its area and bounding box are kept as spans are added, so reading them
+     * costs nothing; a region stops being current once a write could have changed it.
+     */
+    public static final class Region {
+        private char colour;
+        private long area;
+        private int top = Integer.MAX_VALUE;
+        private int left = Integer.MAX_VALUE;
+        private int bottom = -1;
+        private int right = -1;
+        private int[] rows = new int[4];
+        private int[] froms = new int[4];
+        private int[] tos = new int[4];
+        private int spans;
+        private boolean live = true;
+
+        Region(char colour) {
+            this.colour = colour;
+        }
+
+        void add(int row, int from, int to) {
+            if (spans == rows.length) {
+                rows = Arrays.copyOf(rows, spans * 2);
+                froms = Arrays.copyOf(froms, spans * 2);
+                tos = Arrays.copyOf(tos, spans * 2);
+            }
+            rows[spans] = row;
+            froms[spans] = from;
+            tos[spans++] = to;
+            area += to - from + 1;
+            top = Math.min(top, row);
+            bottom = Math.max(bottom, row);
+            left = Math.min(left, from);
+            right = Math.max(right, to);
+        }
+
+        public char getColour() {
+            return colour;
+        }
+
+        public long getArea() {
+            return area;
+        }
+
+        public int getTop() {
+            return top + 1;
+        }
+
+        public int getLeft() {
+            return left + 1;
+        }
+
+        public int getBottom() {
+            return bottom + 1;
+        }
+
+        public int getRight() {
+            return right + 1;
+        }
+
+        /**
+         * Whether the region still describes the canvas.
+         */
+        public boolean isCurrent() {
+            return live;
+        }
+    }
+
+    /**
+     * The labelled spans of one row, sorted by first column.
+     */
+    private static final class Row {
+        int[] starts = new int[4];
+        int[] ends = new int[4];
+        Region[] regions = new Region[4];
+        int count;
+
+        /**
+         * Returns the index of the first span ending at or after {@code col}.
+         */
+        int find(int col) {
+            int lo = 0;
+            int hi = count;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (ends[mid] < col) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            return lo;
+        }
+
+        void insert(int start, int end, Region region) {
+            if (count == starts.length) {
+                starts = Arrays.copyOf(starts, count * 2);
+                ends = Arrays.copyOf(ends, count * 2);
+                regions = Arrays.copyOf(regions, count * 2);
+            }
+            int i = find(start);
+            System.arraycopy(starts, i, starts, i + 1, count - i);
+            System.arraycopy(ends, i, ends, i + 1, count - i);
+            System.arraycopy(regions, i, regions, i + 1, count - i);
+            starts[i] = start;
+            ends[i] = end;
+            regions[i] = region;
+            count++;
+        }
+
+        void remove(int start) {
+            int i = find(start);
+            count--;
+            System.arraycopy(starts, i + 1, starts, i, count - i);
+            System.arraycopy(ends, i + 1, ends, i, count - i);
+            System.arraycopy(regions, i + 1, regions, i, count - i);
+            regions[count] = null;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package org.canvas.lonell.fill;
+
+import org.canvas.lonell.entity.Canvas;
+
+/**
+ * Span based flood fill. Each horizontal run of blank cells is found once, filled in bulk, and only
+ * one seed per blank run is queued for the rows directly above and below it, so the work list stays
+ * proportional to the number of runs rather than the number of cells.
+ */
+public class ScanlineFillEngine implements FillEngine {
+
+    private static final char BLANK = ' ';
+
+    private final PointQueue seeds;
+
+    public ScanlineFillEngine() {
+        this(new PointQueue());
+    }
+
+    public ScanlineFillEngine(PointQueue seeds) {
+        this.seeds = seeds;
+    }
+
+    @Override
+    public void fill(Canvas canvas, int row, int col, char c) {
+        if (c == BLANK) {
+            return;
+        }
+
+        int last = canvas.getInnerWidth();
+        int bottom = canvas.getInnerHeight();
+        seeds.clear();
+
+        if (canvas.get(row, col) == BLANK) {
+            seeds.push(row, col);
+        } else {
+            pushIfBlank(canvas, row + 1, col);
+            pushIfBlank(canvas, row - 1, col);
+            pushIfBlank(canvas, row, col + 1);
+            pushIfBlank(canvas, row, col - 1);
+        }
+
+        while (!seeds.isEmpty()) {
+            long seed = seeds.pop();
+            int r = PointQueue.row(seed);
+            int x = PointQueue.col(seed);
+
+            if (canvas.get(r, x) != BLANK) {
+                continue;
+            }
+
+            int from = canvas.prevPainted(r, 1, x) + 1;
+            int to = canvas.nextPainted(r, x, last) - 1;
+
+            canvas.fillRow(r, from, to, c);
+
+            if (r > 1) {
+                pushSpans(canvas, r - 1, from, to);
+            }
+            if (r < bottom) {
+                pushSpans(canvas, r + 1, from, to);
+            }
+        }
+    }
+
+    private void pushSpans(Canvas canvas, int row, int from, int to) {
+        int x = canvas.nextBlank(row, from, to);
+        while (x <= to) {
+            seeds.push(row, x);
+            x = canvas.nextBlank(row, canvas.nextPainted(row, x, to), to);
+        }
+    }
+
+    private void pushIfBlank(Canvas canvas, int row, int col) {
+        if (row >= 1 && row <= canvas.getInnerHeight() && col >= 1 && col <= canvas.getInnerWidth()
+                && canvas.get(row, col) == BLANK) {
+            seeds.push(row, col);
+        }
+    }
+}
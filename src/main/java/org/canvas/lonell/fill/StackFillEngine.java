@@ -0,0 +1,50 @@
+package org.canvas.lonell.fill;
+
+import org.canvas.lonell.entity.Canvas;
+import org.canvas.lonell.entity.Coordinates;
+
+import java.util.Stack;
+
+/**
+ * The original per-pixel fill: every blank neighbour is pushed as its own {@link Coordinates}.
+ */
+public class StackFillEngine implements FillEngine {
+
+    @Override
+    public void fill(Canvas canvas, int row, int col, char c) {
+        Stack<Coordinates> moves = new Stack<>();
+        int x = row;
+        int y = col;
+
+        moves.add(new Coordinates(x, y));
+
+        while (!moves.empty()) {
+            Coordinates current = moves.pop();
+            x = current.getX();
+            y = current.getY();
+
+            if (Canvas.isBlank(canvas.get(x, y))) {
+                canvas.set(x, y, c);
+            }
+            push(canvas, moves, x, y);
+        }
+    }
+
+    private void push(Canvas canvas, Stack<Coordinates> stack, int x, int y) {
+        if (x + 1 > 0 && x + 1 < canvas.getHeight() - 1 && canvas.get(x + 1, y) == ' ') {
+            stack.add(new Coordinates(x + 1, y));
+        }
+
+        if (x - 1 > 0 && x - 1 < canvas.getHeight() - 1 && canvas.get(x - 1, y) == ' ') {
+            stack.add(new Coordinates(x - 1, y));
+        }
+
+        if (y + 1 > 0 && y + 1 < canvas.getWidth() - 1 && canvas.get(x, y + 1) == ' ') {
+            stack.add(new Coordinates(x, y + 1));
+        }
+
+        if (y - 1 > 0 && y - 1 < canvas.getWidth() - 1 && canvas.get(x, y - 1) == ' ') {
+            stack.add(new Coordinates(x, y - 1));
+        }
+    }
+}
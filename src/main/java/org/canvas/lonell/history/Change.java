@@ -0,0 +1,110 @@
+package org.canvas.lonell.history;
+
+import org.canvas.lonell.entity.Canvas;
+import org.canvas.lonell.entity.CanvasStorage;
+import org.canvas.lonell.entity.DisplayList;
+import org.canvas.lonell.entity.Shape;
+import org.canvas.lonell.entity.SpanRecorder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The before-images of every row span a command wrote, in the order they were written. Applying a
+ * change writes the spans back in reverse order and returns the inverse change, so undo and redo
+ * cost time and memory proportional to the cells the command touched. A command drawing retained
+ * shapes also keeps the shapes: undo restores the spans painted so far and takes the shapes out of
+ * their display list, and redo puts them back to be painted lazily again.
+ */
+public class Change implements SpanRecorder {
+
+    private int[] rows = new int[8];
+    private int[] froms = new int[8];
+    private int[] lengths = new int[8];
+    private char[] data = new char[64];
+    private int spans;
+    private int size;
+    private DisplayList list;
+    private List<Shape> shapes;
+    private boolean removed;
+
+    @Override
+    public synchronized void record(CanvasStorage storage, int row, int from, int to) {
+        int length = to - from + 1;
+        if (spans == rows.length) {
+            rows = Arrays.copyOf(rows, spans * 2);
+            froms = Arrays.copyOf(froms, spans * 2);
+            lengths = Arrays.copyOf(lengths, spans * 2);
+        }
+        if (size + length > data.length) {
+            data = Arrays.copyOf(data, Math.max(size + length, data.length * 2));
+        }
+        storage.copySpan(row, from, to, data, size);
+        rows[spans] = row;
+        froms[spans] = from;
+        lengths[spans] = length;
+        spans++;
+        size += length;
+    }
+
+    void retain(DisplayList list, Shape shape) {
+        if (shapes == null) {
+            shapes = new ArrayList<>();
+        }
+        this.list = list;
+        shapes.add(shape);
+    }
+
+    public boolean isEmpty() {
+        return spans == 0 && shapes == null;
+    }
+
+    /**
+     * Returns the number of cells recorded.
+     */
+    public long cells() {
+        return size;
+    }
+
+    public long memoryBytes() {
+        return 2L * data.length + 12L * rows.length + (shapes == null ? 0 : 64L * shapes.size());
+    }
+
+    /**
+     * Restores the recorded spans on {@code canvas}, writing straight to {@code storage} so nothing is
+     * journalled, and returns the change that reverts this one.
+     */
+    Change apply(Canvas canvas, CanvasStorage storage) {
+        Change inverse = new Change();
+        if (shapes != null) {
+            if (removed) {
+                for (Shape shape : shapes) {
+                    inverse.retain(list, shape);
+                    list.add(shape, inverse);
+                    canvas.markDirty(shape.getTop() + 1, shape.getBottom() + 1);
+                }
+                return inverse;
+            }
+            for (int i = shapes.size() - 1; i >= 0; i--) {
+                list.remove(shapes.get(i));
+            }
+            inverse.list = list;
+            inverse.shapes = shapes;
+            inverse.removed = true;
+        }
+        int end = size;
+        for (int i = spans - 1; i >= 0; i--) {
+            int from = froms[i];
+            int to = from + lengths[i] - 1;
+            int start = end - lengths[i];
+            if (!inverse.removed) {
+                inverse.record(storage, rows[i], from, to);
+            }
+            storage.writeSpan(rows[i], from, to, data, start);
+            canvas.markDirty(rows[i] + 1);
+            end = start;
+        }
+        return inverse;
+    }
+}
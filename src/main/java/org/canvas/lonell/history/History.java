@@ -0,0 +1,172 @@
+package org.canvas.lonell.history;
+
+import org.canvas.lonell.entity.Canvas;
+import org.canvas.lonell.entity.CanvasStorage;
+import org.canvas.lonell.entity.DisplayList;
+import org.canvas.lonell.entity.Shape;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Undo and redo stacks for one session. Drawing commands are journalled as {@link Change}s holding
+ * only the spans they wrote; a {@code C} command keeps the replaced canvas itself as a checkpoint,
+ * which costs no copy because the new canvas never writes to it. No other checkpoints are taken:
+ * every entry is undone from its own spans, never by replaying from an earlier state, so a step
+ * costs the same however long the history. When the retained history exceeds the memory limit the
+ * oldest undo entries are dropped first.
+ */
+public class History {
+
+    public static final long DEFAULT_LIMIT = 64L * 1024 * 1024;
+
+    private final Deque<Entry> undo = new ArrayDeque<>();
+    private final Deque<Entry> redo = new ArrayDeque<>();
+    private long limit = DEFAULT_LIMIT;
+    private long bytes;
+    private volatile Change recording;
+
+    /**
+     * Starts journalling the writes of the next command.
+     */
+    public void begin() {
+        recording = new Change();
+    }
+
+    void record(CanvasStorage storage, int row, int from, int to) {
+        Change change = recording;
+        if (change != null) {
+            change.record(storage, row, from, to);
+        }
+    }
+
+    /**
+     * Adds {@code shape} to {@code list} as part of the current command, so that undoing the command
+     * takes it out again.
+     */
+    public void retain(DisplayList list, Shape shape) {
+        Change change = recording;
+        if (change != null) {
+            change.retain(list, shape);
+        }
+        list.add(shape, change);
+    }
+
+    /**
+     * Finishes the command started with {@link #begin()}. {@code before} and {@code after} are the
+     * session's canvas before and after the command ran. Returns the number of cells the command
+     * wrote, counting every cell of a replacement canvas.
+     */
+    public long commit(Canvas before, Canvas after) {
+        Change change = recording;
+        recording = null;
+
+        Entry entry;
+        long cells;
+        if (before != after) {
+            entry = new Entry(before, after, null);
+            cells = after == null ? 0 : (long) after.getInnerWidth() * after.getInnerHeight();
+        } else if (change != null && !change.isEmpty()) {
+            entry = new Entry(after, after, change);
+            cells = change.cells();
+        } else {
+            return 0;
+        }
+
+        clear(redo);
+        push(undo, entry);
+        evict();
+        return cells;
+    }
+
+    public boolean canUndo() {
+        return !undo.isEmpty();
+    }
+
+    public boolean canRedo() {
+        return !redo.isEmpty();
+    }
+
+    /**
+     * Reverts the newest entry and returns the canvas the session should show afterwards.
+     */
+    public Canvas undo(Canvas current) {
+        return move(undo, redo, current, true);
+    }
+
+    /**
+     * Re-applies the newest undone entry and returns the canvas the session should show afterwards.
+     */
+    public Canvas redo(Canvas current) {
+        return move(redo, undo, current, false);
+    }
+
+    private Canvas move(Deque<Entry> from, Deque<Entry> to, Canvas current, boolean backwards) {
+        Entry entry = from.pop();
+        bytes -= entry.bytes;
+
+        if (entry.change == null) {
+            push(to, entry);
+            return backwards ? entry.before : entry.after;
+        }
+
+        Change inverse = entry.change.apply(current, current.getStorage());
+        push(to, new Entry(current, current, inverse));
+        return current;
+    }
+
+    public void clear() {
+        clear(undo);
+        clear(redo);
+        recording = null;
+    }
+
+    public void setLimit(long limit) {
+        this.limit = limit;
+        evict();
+    }
+
+    public long getLimit() {
+        return limit;
+    }
+
+    public long memoryBytes() {
+        return bytes;
+    }
+
+    private void push(Deque<Entry> stack, Entry entry) {
+        stack.push(entry);
+        bytes += entry.bytes;
+    }
+
+    private void clear(Deque<Entry> stack) {
+        for (Entry entry : stack) {
+            bytes -= entry.bytes;
+        }
+        stack.clear();
+    }
+
+    private void evict() {
+        while (bytes > limit && !undo.isEmpty()) {
+            bytes -= undo.removeLast().bytes;
+        }
+    }
+
+    private static final class Entry {
+        final Canvas before;
+        final Canvas after;
+        final Change change;
+        final long bytes;
+
+        Entry(Canvas before, Canvas after, Change change) {
+            this.before = before;
+            this.after = after;
+            this.change = change;
+            if (change != null) {
+                bytes = change.memoryBytes();
+            } else {
+                bytes = before != null ? before.getStorage().memoryBytes() : 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package org.canvas.lonell.history;
+
+import org.canvas.lonell.entity.CanvasStorage;
+
+/**
+ * Storage decorator that hands the before-image of every span it is about to write to a
+ * {@link History}. Reads go straight to the wrapped storage.
+ */
+public class JournalingStorage implements CanvasStorage {
+
+    private final CanvasStorage storage;
+    private final History history;
+
+    public JournalingStorage(CanvasStorage storage, History history) {
+        this.storage = storage;
+        this.history = history;
+    }
+
+    /**
+     * Returns the wrapped storage.
+     */
+    public CanvasStorage getStorage() {
+        return storage;
+    }
+
+    @Override
+    public int getWidth() {
+        return storage.getWidth();
+    }
+
+    @Override
+    public int getHeight() {
+        return storage.getHeight();
+    }
+
+    @Override
+    public char get(int row, int col) {
+        return storage.get(row, col);
+    }
+
+    @Override
+    public void set(int row, int col, char c) {
+        history.record(storage, row, col, col);
+        storage.set(row, col, c);
+    }
+
+    @Override
+    public void fill(char c) {
+        for (int row = 0; row < storage.getHeight(); row++) {
+            history.record(storage, row, 0, storage.getWidth() - 1);
+        }
+        storage.fill(c);
+    }
+
+    @Override
+    public void fillSpan(int row, int from, int to, char c) {
+        history.record(storage, row, from, to);
+        storage.fillSpan(row, from, to, c);
+    }
+
+    @Override
+    public boolean paintSpan(int row, int from, int to, char c) {
+        history.record(storage, row, from, to);
+        return storage.paintSpan(row, from, to, c);
+    }
+
+    @Override
+    public int nextBlank(int row, int from, int to) {
+        return storage.nextBlank(row, from, to);
+    }
+
+    @Override
+    public int nextPainted(int row, int from, int to) {
+        return storage.nextPainted(row, from, to);
+    }
+
+    @Override
+    public int prevPainted(int row, int from, int to) {
+        return storage.prevPainted(row, from, to);
+    }
+
+    @Override
+    public int runEnd(int row, int from, int to) {
+        return storage.runEnd(row, from, to);
+    }
+
+    @Override
+    public void copySpan(int row, int from, int to, char[] dest, int offset) {
+        storage.copySpan(row, from, to, dest, offset);
+    }
+
+    @Override
+    public void writeSpan(int row, int from, int to, char[] src, int offset) {
+        history.record(storage, row, from, to);
+        storage.writeSpan(row, from, to, src, offset);
+    }
+
+    @Override
+    public long memoryBytes() {
+        return storage.memoryBytes();
+    }
+}
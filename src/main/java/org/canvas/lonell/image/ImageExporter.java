@@ -0,0 +1,223 @@
+package org.canvas.lonell.image;
+
+import org.canvas.lonell.entity.Canvas;
+import org.canvas.lonell.entity.CanvasStorage;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Writes the inner cells of a canvas as a binary PPM or a truecolour PNG image, one pixel per
+ * cell. Rows are read in chunks of at most {@link #CHUNK} cells and encoded straight into a
+ * fixed-size output buffer; PNG data is deflated as it goes and written as a sequence of IDAT
+ * chunks. Memory use is therefore the same for every canvas size and the export runs as fast as
+ * the storage can be read and the file written.
+ */
+public final class ImageExporter {
+
+    public enum Format {
+        PPM, PNG
+    }
+
+    public static final int CHUNK = 16384;
+
+    private static final int BUFFER = 1 << 20;
+    private static final byte[] PNG_SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1a, '\n'};
+
+    private ImageExporter() {
+    }
+
+    /**
+     * Exports to {@code file} as a PNG if its name ends in {@code .png} and as a PPM otherwise.
+     */
+    public static void export(Canvas canvas, Path file, Palette palette) throws IOException {
+        Format format = file.getFileName().toString().toLowerCase().endsWith(".png") ? Format.PNG : Format.PPM;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            export(canvas, channel, palette, format);
+        }
+    }
+
+    public static void export(Canvas canvas, WritableByteChannel channel, Palette palette, Format format) throws IOException {
+        CanvasStorage storage = canvas.getStorage();
+        Output out = new Output(channel);
+        if (format == Format.PNG) {
+            writePng(storage, out, palette);
+        } else {
+            writePpm(storage, out, palette);
+        }
+        out.flush();
+    }
+
+    private static void writePpm(CanvasStorage storage, Output out, Palette palette) throws IOException {
+        out.put(("P6\n" + storage.getWidth() + " " + storage.getHeight() + "\n255\n").getBytes(StandardCharsets.US_ASCII));
+        Pixels pixels = new Pixels(storage, palette, 0);
+        for (int row = 0; row < storage.getHeight(); row++) {
+            for (int from = 0; from < storage.getWidth(); from += CHUNK) {
+                out.put(pixels.bytes, 0, pixels.encode(row, from));
+            }
+        }
+    }
+
+    private static void writePng(CanvasStorage storage, Output out, Palette palette) throws IOException {
+        out.put(PNG_SIGNATURE);
+        ByteBuffer header = ByteBuffer.allocate(13);
+        header.putInt(storage.getWidth()).putInt(storage.getHeight());
+        header.put((byte) 8).put((byte) 2).put((byte) 0).put((byte) 0).put((byte) 0);
+        out.chunk("IHDR", header.array(), 13);
+
+        Idat idat = new Idat(out);
+        Pixels pixels = new Pixels(storage, palette, 1);
+        for (int row = 0; row < storage.getHeight(); row++) {
+            for (int from = 0; from < storage.getWidth(); from += CHUNK) {
+                int length = pixels.encode(row, from);
+                if (from == 0) {
+                    idat.deflate(pixels.bytes, 0, length);
+                } else {
+                    idat.deflate(pixels.bytes, 1, length - 1);
+                }
+            }
+        }
+        idat.finish();
+        out.chunk("IEND", new byte[0], 0);
+    }
+
+    /**
+     * Encodes one chunk of a row as RGB triples, optionally after a leading filter byte of zero.
+     */
+    private static final class Pixels {
+        private final CanvasStorage storage;
+        private final Palette palette;
+        private final int offset;
+        private final char[] cells = new char[CHUNK];
+        final byte[] bytes;
+
+        Pixels(CanvasStorage storage, Palette palette, int offset) {
+            this.storage = storage;
+            this.palette = palette;
+            this.offset = offset;
+            bytes = new byte[offset + 3 * CHUNK];
+        }
+
+        /**
+         * Encodes cells {@code from} onwards of {@code row} and returns the number of bytes used.
+         */
+        int encode(int row, int from) {
+            int to = Math.min(storage.getWidth(), from + CHUNK) - 1;
+            int count = to - from + 1;
+            storage.copySpan(row, from, to, cells, 0);
+            char last = cells[0];
+            int rgb = palette.rgb(last);
+            int pos = offset;
+            for (int i = 0; i < count; i++) {
+                if (cells[i] != last) {
+                    last = cells[i];
+                    rgb = palette.rgb(last);
+                }
+                bytes[pos++] = (byte) (rgb >> 16);
+                bytes[pos++] = (byte) (rgb >> 8);
+                bytes[pos++] = (byte) rgb;
+            }
+            return pos;
+        }
+    }
+
+    /**
+     * Deflates scanlines into a fixed buffer and writes every full buffer as an IDAT chunk.
+     */
+    private static final class Idat {
+        private final Output out;
+        private final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        private final byte[] data = new byte[1 << 16];
+        private int length;
+
+        Idat(Output out) {
+            this.out = out;
+        }
+
+        void deflate(byte[] bytes, int offset, int count) throws IOException {
+            deflater.setInput(bytes, offset, count);
+            while (!deflater.needsInput()) {
+                drain();
+            }
+        }
+
+        void finish() throws IOException {
+            deflater.finish();
+            while (!deflater.finished()) {
+                drain();
+            }
+            if (length > 0) {
+                out.chunk("IDAT", data, length);
+            }
+            deflater.end();
+        }
+
+        private void drain() throws IOException {
+            length += deflater.deflate(data, length, data.length - length);
+            if (length == data.length) {
+                out.chunk("IDAT", data, length);
+                length = 0;
+            }
+        }
+    }
+
+    private static final class Output {
+        private final WritableByteChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER);
+        private final CRC32 crc = new CRC32();
+
+        Output(WritableByteChannel channel) {
+            this.channel = channel;
+        }
+
+        void put(byte[] bytes) throws IOException {
+            put(bytes, 0, bytes.length);
+        }
+
+        void put(byte[] bytes, int offset, int length) throws IOException {
+            while (length > 0) {
+                if (!buffer.hasRemaining()) {
+                    flush();
+                }
+                int n = Math.min(length, buffer.remaining());
+                buffer.put(bytes, offset, n);
+                offset += n;
+                length -= n;
+            }
+        }
+
+        void putInt(int value) throws IOException {
+            put(new byte[]{(byte) (value >>> 24), (byte) (value >>> 16), (byte) (value >>> 8), (byte) value});
+        }
+
+        /**
+         * Writes a PNG chunk: its length, type, data and the CRC of type and data.
+         */
+        void chunk(String type, byte[] data, int length) throws IOException {
+            byte[] name = type.getBytes(StandardCharsets.US_ASCII);
+            crc.reset();
+            crc.update(name);
+            crc.update(data, 0, length);
+            putInt(length);
+            put(name);
+            put(data, 0, length);
+            putInt((int) crc.getValue());
+        }
+
+        void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package org.canvas.lonell.image;
+
+import org.canvas.lonell.entity.Canvas;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Maps canvas characters to 24-bit RGB colours for image export. Blank cells are white and
+ * {@code x} is black unless mapped otherwise; any other character without an entry gets a colour
+ * derived from its code, so the same character always looks the same.
+ */
+public final class Palette {
+
+    private static final int UNSET = -1;
+
+    private final int[] ascii = new int[128];
+    private final Map<Character, Integer> others = new HashMap<>();
+
+    public Palette() {
+        Arrays.fill(ascii, UNSET);
+        put(Canvas.BLANK, 0xffffff);
+        put('x', 0x000000);
+    }
+
+    /**
+     * Parses entries of the form {@code c=rrggbb} separated by commas, such as
+     * {@code "o=ff8000,#=0000ff"}, on top of the defaults.
+     */
+    public static Palette parse(String spec) {
+        Palette palette = new Palette();
+        for (String entry : spec.split(",")) {
+            if (entry.length() != 8 || entry.charAt(1) != '=') {
+                throw new IllegalArgumentException("Invalid palette entry: " + entry);
+            }
+            try {
+                palette.put(entry.charAt(0), Integer.parseInt(entry.substring(2), 16));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid palette entry: " + entry, e);
+            }
+        }
+        return palette;
+    }
+
+    public Palette put(char c, int rgb) {
+        if (c < ascii.length) {
+            ascii[c] = rgb & 0xffffff;
+        } else {
+            others.put(c, rgb & 0xffffff);
+        }
+        return this;
+    }
+
+    public int rgb(char c) {
+        if (c < ascii.length && ascii[c] != UNSET) {
+            return ascii[c];
+        }
+        Integer rgb = others.get(c);
+        if (rgb != null) {
+            return rgb;
+        }
+        return (c * 0x9e3779b1 >>> 8) & 0xffffff;
+    }
+}
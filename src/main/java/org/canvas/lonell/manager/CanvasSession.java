@@ -0,0 +1,862 @@
+package org.canvas.lonell.manager;
+
+import org.canvas.lonell.command.Command;
+import org.canvas.lonell.command.CommandParser;
+import org.canvas.lonell.entity.Canvas;
+import org.canvas.lonell.entity.CanvasStorage;
+import org.canvas.lonell.entity.DisplayList;
+import org.canvas.lonell.entity.Shape;
+import org.canvas.lonell.entity.StorageType;
+import org.canvas.lonell.fill.FillEngine;
+import org.canvas.lonell.fill.PointQueue;
+import org.canvas.lonell.fill.RegionIndex;
+import org.canvas.lonell.fill.ScanlineFillEngine;
+import org.canvas.lonell.history.History;
+import org.canvas.lonell.image.ImageExporter;
+import org.canvas.lonell.image.Palette;
+import org.canvas.lonell.history.JournalingStorage;
+import org.canvas.lonell.metrics.CommandStats;
+import org.canvas.lonell.render.ByteSink;
+import org.canvas.lonell.render.FramePump;
+import org.canvas.lonell.render.FrameRenderer;
+import org.canvas.lonell.render.DeltaRenderer;
+import org.canvas.lonell.render.Renderer;
+import org.canvas.lonell.render.ViewportRenderer;
+import org.canvas.lonell.snapshot.Snapshot;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+/**
+ * One independent painting session: it owns its canvas, the scratch buffers used by fills and
+ * renders, and the sink that receives frames and messages. Sessions share no state with each
+ * other, so the only lock taken is the session's own monitor.
+ */
+public class CanvasSession {
+
+    private final ByteSink sink;
+    private final PointQueue workQueue = new PointQueue();
+    private final CommandParser parser = new CommandParser();
+    private final Command parsed = new Command();
+    private final History history = new History();
+    private final CommandStats stats = new CommandStats();
+    private Canvas canvas = null;
+    private FillEngine fillEngine = new ScanlineFillEngine(workQueue);
+    private Renderer renderer;
+    private ViewportRenderer viewport;
+    private FramePump pump;
+    private Canvas copied;
+    private Canvas frameCopy;
+    private char[] rowBuffer = new char[0];
+    private Palette palette = new Palette();
+    private StorageType storageType;
+    private boolean autoRender = true;
+    private boolean retained;
+    private boolean indexRegions;
+    private boolean closed;
+    private boolean failed;
+    private boolean unknown;
+
+    public CanvasSession() {
+        this(ByteSink.console());
+    }
+
+    public CanvasSession(ByteSink sink) {
+        this.sink = sink;
+        this.renderer = new FrameRenderer(sink);
+    }
+
+    public synchronized Canvas createCanvas(int width, int height) {
+        StorageType type = storageType != null ? storageType : StorageType.forSize(width, height);
+        canvas = wrap(type.create(width, height));
+        return canvas;
+    }
+
+    private Canvas wrap(CanvasStorage storage) {
+        RegionIndex index = indexRegions ? new RegionIndex(storage) : null;
+        if (index != null) {
+            storage = index;
+        }
+        if (retained) {
+            DisplayList list = new DisplayList(storage);
+            if (index != null) {
+                index.setDisplayList(list);
+            }
+            storage = list;
+        }
+        return new Canvas(new JournalingStorage(storage, history));
+    }
+
+    /**
+     * Returns the display list behind the current canvas, or {@code null} if it is drawn in
+     * immediate mode.
+     */
+    private DisplayList getDisplayList() {
+        CanvasStorage storage = canvas.getStorage();
+        if (storage instanceof JournalingStorage) {
+            storage = ((JournalingStorage) storage).getStorage();
+        }
+        return storage instanceof DisplayList ? (DisplayList) storage : null;
+    }
+
+    /**
+     * Returns the region index behind the current canvas, or {@code null} if regions are not
+     * indexed or there is no canvas.
+     */
+    public synchronized RegionIndex getRegionIndex() {
+        if (canvas == null) {
+            return null;
+        }
+        CanvasStorage storage = canvas.getStorage();
+        if (storage instanceof JournalingStorage) {
+            storage = ((JournalingStorage) storage).getStorage();
+        }
+        if (storage instanceof DisplayList) {
+            storage = ((DisplayList) storage).getStorage();
+        }
+        return storage instanceof RegionIndex ? (RegionIndex) storage : null;
+    }
+
+    public synchronized void execute(String command, String... args) {
+        parser.parse(command, args, parsed);
+        execute(parsed);
+    }
+
+    public synchronized void execute(String args) {
+        if (parser.parse(args, parsed)) {
+            execute(parsed);
+        }
+    }
+
+    public synchronized void execute(Command command) {
+        if (command.getOpcode() == 'Q') {
+            closed = true;
+            return;
+        }
+
+        long start = System.nanoTime();
+        long cells = 0;
+        long bytes = 0;
+        failed = false;
+        unknown = false;
+
+        if (checkCommand(command)) {
+            if (isUntracked(command)) {
+                addShape(command);
+            } else {
+                Canvas before = canvas;
+                history.begin();
+                addShape(command);
+                cells = history.commit(before, canvas);
+            }
+            if (autoRender && canvas != null && command.getOpcode() != Command.STATS) {
+                if (pump != null) {
+                    pump.request(true);
+                } else {
+                    bytes = render();
+                }
+            }
+        }
+        if (pump != null) {
+            pump.request(false);
+        }
+
+        stats.record(unknown ? Command.INVALID : command.getOpcode(), failed, System.nanoTime() - start, cells, bytes);
+    }
+
+    private boolean isUntracked(Command command) {
+        return command.getOpcode() == 'U' || command.getOpcode() == 'Y' || command.getOpcode() == 'V'
+                || command.getOpcode() == Command.STATS;
+    }
+
+    private void addShape(Command command) {
+        switch (command.getOpcode()) {
+            case 'C':
+                createCanvas(command.get(0), command.get(1));
+                break;
+
+            case 'L':
+                addLine(command.get(0), command.get(1), command.get(2), command.get(3));
+                break;
+
+            case 'R':
+                addRectangle(command.get(0), command.get(1), command.get(2), command.get(3));
+                break;
+
+            case 'P':
+                addPolyline(command);
+                break;
+
+            case 'F':
+                canvas.fillBlock(command.get(0), command.get(1), command.get(2), command.get(3), command.charAt(4));
+                break;
+
+            case 'K':
+                canvas.copyBlock(command.get(0), command.get(1), command.get(2), command.get(3), command.get(4), command.get(5));
+                break;
+
+            case 'B':
+                addBucketFill(command.get(0), command.get(1), command.charAt(2));
+                break;
+
+            case 'S':
+                save(command.getText(0));
+                break;
+
+            case 'O':
+                open(command.getText(0));
+                break;
+
+            case 'E':
+                export(command.getText(0));
+                break;
+
+            case 'U':
+                canvas = history.undo(canvas);
+                break;
+
+            case Command.STATS:
+                print(stats.format());
+                break;
+
+            case 'V':
+                setViewport(command);
+                break;
+
+            case 'Y':
+                canvas = history.redo(canvas);
+                break;
+
+            default:
+                break;
+        }
+    }
+
+    private void save(String file) {
+        try {
+            Snapshot.save(canvas, Paths.get(file));
+        } catch (IOException e) {
+            message("Unable to save canvas: " + e.getMessage());
+        }
+    }
+
+    private void export(String file) {
+        try {
+            ImageExporter.export(canvas, Paths.get(file), palette);
+        } catch (IOException e) {
+            message("Unable to export canvas: " + e.getMessage());
+        }
+    }
+
+    private void open(String file) {
+        try {
+            canvas = wrap(Snapshot.load(Paths.get(file), storageType));
+        } catch (IOException e) {
+            message("Unable to open canvas: " + e.getMessage());
+        }
+    }
+
+    private void setViewport(Command command) {
+        if (command.size() == 0) {
+            viewport = null;
+            if (renderer instanceof DeltaRenderer) {
+                ((DeltaRenderer) renderer).invalidate();
+            }
+            return;
+        }
+        if (viewport == null) {
+            viewport = new ViewportRenderer(sink);
+        }
+        int scale = command.size() == 5 ? command.get(4) : 1;
+        viewport.setWindow(command.get(0), command.get(1), command.get(2), command.get(3), scale);
+    }
+
+    private void addLine(int x1, int y1, int x2, int y2) {
+        DisplayList list = getDisplayList();
+        if (list != null) {
+            history.retain(list, new Shape(Shape.Kind.LINE, y1 - 1, x1 - 1, y2 - 1, x2 - 1, 'x'));
+            canvas.markDirty(Math.min(y1, y2), Math.max(y1, y2));
+        } else {
+            canvas.paintLine(x1, y1, x2, y2, 'x');
+        }
+    }
+
+    private void addPolyline(Command command) {
+        for (int i = 2; i + 1 < command.size(); i += 2) {
+            addLine(command.get(i - 2), command.get(i - 1), command.get(i), command.get(i + 1));
+        }
+    }
+
+    private void addRectangle(int x1, int y1, int x2, int y2) {
+        DisplayList list = getDisplayList();
+        if (list != null) {
+            history.retain(list, new Shape(Shape.Kind.RECTANGLE, y1 - 1, x1 - 1, y2 - 1, x2 - 1, 'x'));
+            canvas.markDirty(y1, y2);
+            return;
+        }
+        addLine(x1, y1, x1, y2);
+        addLine(x1, y1, x2, y1);
+        addLine(x2, y1, x2, y2);
+        addLine(x1, y2, x2, y2);
+    }
+
+    private void addBucketFill(int x, int y, char c) {
+        long start = System.nanoTime();
+        RegionIndex index = getRegionIndex();
+        if (index != null) {
+            index.recolour(canvas, y, x, c);
+        } else {
+            fillEngine.fill(canvas, y, x, c);
+        }
+        stats.fillTook(System.nanoTime() - start);
+    }
+
+    private boolean checkCommand(Command command) {
+        boolean check;
+        switch (command.getOpcode()) {
+            case 'C':
+                check = isValidCreate(command);
+                break;
+            case 'L':
+                check = isValidLine(command);
+                break;
+
+            case 'R':
+                check = isValidRectangle(command);
+                break;
+
+            case 'P':
+                check = isValidPolyline(command);
+                break;
+
+            case 'F':
+                check = isValidBlock(command, 5) && isValidColour(command, 4) && isWithinBoundary(command, 0, 1, 2, 3);
+                break;
+
+            case 'K':
+                check = isValidBlock(command, 6) && isValidDestination(command);
+                break;
+
+            case 'B':
+                check = isValidBucketFill(command);
+                break;
+
+            case 'S':
+                check = isInitialised() && isValidFile(command);
+                break;
+
+            case 'O':
+                check = isValidFile(command);
+                break;
+
+            case 'E':
+                check = isInitialised() && isValidFile(command);
+                break;
+
+            case Command.STATS:
+                check = isValidLength(command, 0);
+                break;
+
+            case 'V':
+                check = isValidViewport(command);
+                break;
+
+            case 'U':
+                check = isValidLength(command, 0) && isAvailable(history.canUndo(), "Nothing to undo.");
+                break;
+
+            case 'Y':
+                check = isValidLength(command, 0) && isAvailable(history.canRedo(), "Nothing to redo.");
+                break;
+
+            default:
+                unknown = true;
+                message("Sorry, invalid command. Please try: C, L, R, P, F, K, B, S, O, E, U, Y, V, STATS or Q.");
+                check = false;
+                break;
+        }
+
+        return check;
+    }
+
+    private boolean isValidCreate(Command command) {
+        if (!isValidLength(command, 2)) {
+            return false;
+        }
+
+        if (!command.isNumericAndPositive(0, 1)) {
+            message("Invalid arguments. Values must be positive numbers.");
+            return false;
+        }
+
+        return isMinimumDimension(command) && isSupportedSize(command);
+    }
+
+    private boolean isValidLine(Command command) {
+        if (!isInitialised()) {
+            return false;
+        }
+
+        if (!isValidLength(command, 4)) {
+            return false;
+        }
+
+        if (!command.isNumericAndPositive(0, 3)) {
+            message("Invalid arguments. Values must be positive numbers.");
+            return false;
+        }
+
+        return isWithinBoundary(command, 0, 1, 2, 3);
+    }
+
+    private boolean isValidPolyline(Command command) {
+        if (!isInitialised()) {
+            return false;
+        }
+
+        if (command.size() < 4 || command.size() % 2 != 0) {
+            message("Invalid number of arguments.");
+            return false;
+        }
+
+        if (!command.isNumericAndPositive(0, command.size() - 1)) {
+            message("Invalid arguments. Values must be positive numbers.");
+            return false;
+        }
+
+        for (int i = 0; i < command.size(); i += 2) {
+            if (!isWithinBoundary(command, i, i + 1, i, i + 1)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean isValidRectangle(Command command) {
+        if (!isInitialised()) {
+            return false;
+        }
+
+        if (!isValidLength(command, 4)) {
+            return false;
+        }
+
+        if (!command.isNumericAndPositive(0, 3)) {
+            message("Invalid arguments. Values must be positive numbers.");
+            return false;
+        }
+
+        if (calculateArea(command) < 1) {
+            message("Rectangle dimensions are too small.");
+            return false;
+        }
+
+        command.swapSmaller(0, 2);
+        command.swapSmaller(1, 3);
+
+        return isWithinBoundary(command, 0, 1, 2, 3);
+    }
+
+    private boolean isValidBlock(Command command, int length) {
+        if (!isInitialised()) {
+            return false;
+        }
+
+        if (!isValidLength(command, length)) {
+            return false;
+        }
+
+        if (!command.isNumericAndPositive(0, 3) || (length == 6 && !command.isNumericAndPositive(4, 5))) {
+            message("Invalid arguments. Values must be positive numbers.");
+            return false;
+        }
+
+        command.swapSmaller(0, 2);
+        command.swapSmaller(1, 3);
+        return true;
+    }
+
+    private boolean isValidDestination(Command command) {
+        if (!isWithinBoundary(command, 0, 1, 2, 3)) {
+            return false;
+        }
+        int right = command.get(4) + command.get(2) - command.get(0);
+        int bottom = command.get(5) + command.get(3) - command.get(1);
+        if (!isInside(command.get(4), command.get(5)) || !isInside(right, bottom)) {
+            message("Invalid arguments, coordinates are outside canvas dimensions.");
+            return false;
+        }
+        return true;
+    }
+
+    private boolean isValidBucketFill(Command command) {
+        if (!isInitialised()) {
+            return false;
+        }
+
+        if (!isValidLength(command, 3)) {
+            return false;
+        }
+
+        if (!command.isNumericAndPositive(0, 1)) {
+            message("Invalid arguments. Values must be positive numbers.");
+            return false;
+        }
+
+        return isValidColour(command, 2) && isWithinBoundary(command, 0, 1, 0, 1);
+    }
+
+    private boolean isValidViewport(Command command) {
+        if (!isInitialised()) {
+            return false;
+        }
+
+        if (command.size() == 0) {
+            return true;
+        }
+
+        if (command.size() != 4 && command.size() != 5) {
+            message("Invalid number of arguments.");
+            return false;
+        }
+
+        if (!command.isNumericAndPositive(0, command.size() - 1)) {
+            message("Invalid arguments. Values must be positive numbers.");
+            return false;
+        }
+
+        for (int i = 2; i < command.size(); i++) {
+            if (command.get(i) < 1) {
+                message("Invalid arguments. Values must be at at least 1.");
+                return false;
+            }
+        }
+
+        return isWithinBoundary(command, 0, 1, 0, 1);
+    }
+
+    private boolean isValidFile(Command command) {
+        if (command.size() == 0) {
+            message("Invalid number of arguments.");
+            return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Cells hold one {@code char}, so a colour outside the Basic Multilingual Plane, which arrives
+     * as a surrogate pair, cannot be painted.
+     */
+    private boolean isValidColour(Command command, int i) {
+        if (Character.isSurrogate(command.charAt(i))) {
+            message("Invalid colour. The colour must be a single character.");
+            return false;
+        }
+        return true;
+    }
+
+    private boolean isAvailable(boolean available, String text) {
+        if (!available) {
+            message(text);
+        }
+        return available;
+    }
+
+    private boolean isInitialised() {
+        if (canvas == null) {
+            message("Please create a canvas before attempting to draw shape.");
+            return false;
+        }
+        return true;
+    }
+
+    private boolean isWithinBoundary(Command command, int x1, int y1, int x2, int y2) {
+        if (!isInside(command.get(x1), command.get(y1)) || !isInside(command.get(x2), command.get(y2))) {
+            message("Invalid arguments, coordinates are outside canvas dimensions.");
+            return false;
+        }
+        return true;
+    }
+
+    private boolean isInside(int x, int y) {
+        return x > 0 && x < canvas.getWidth() - 1 && y > 0 && y < canvas.getHeight() - 1;
+    }
+
+    private boolean isMinimumDimension(Command command) {
+        for (int i = 0; i < command.size(); i++) {
+            if (command.get(i) < 1) {
+                message("Invalid arguments. Values must be at at least 1.");
+                return false;
+            }
+            if (command.get(i) > Canvas.MAX_DIMENSION) {
+                message("Invalid arguments. Values must be at most " + Canvas.MAX_DIMENSION + ".");
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private boolean isSupportedSize(Command command) {
+        if (storageType != null && (long) command.get(0) * command.get(1) > storageType.getMaxCells()) {
+            message("Canvas dimensions are too large for " + storageType.name().toLowerCase() + " storage.");
+            return false;
+        }
+
+        return true;
+    }
+
+    private boolean isValidLength(Command command, int length) {
+        if (command.size() != length) {
+            message("Invalid number of arguments.");
+            return false;
+        }
+
+        return true;
+    }
+
+    public synchronized void draw() {
+        long start = System.nanoTime();
+        if (pump != null) {
+            pump.request(true);
+            stats.record(CommandStats.DRAW, false, System.nanoTime() - start, 0, 0);
+            return;
+        }
+        long bytes = render();
+        stats.record(CommandStats.DRAW, false, System.nanoTime() - start, 0, bytes);
+    }
+
+    /**
+     * Renders the canvas and returns the number of bytes written.
+     */
+    private long render() {
+        return render(viewport != null ? viewport : renderer, canvas);
+    }
+
+    private long render(Renderer target, Canvas frame) {
+        long written = sink.getBytesWritten();
+        long start = System.nanoTime();
+        try {
+            target.render(frame);
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to render canvas.", e);
+        }
+        stats.renderTook(System.nanoTime() - start);
+        return sink.getBytesWritten() - written;
+    }
+
+    private long calculateArea(Command command) {
+        return Math.abs((long) command.get(0) - command.get(2)) *
+                Math.abs((long) command.get(1) - command.get(3));
+    }
+
+    /**
+     * Reports why the current command failed.
+     */
+    private void message(String text) {
+        failed = true;
+        print(text);
+    }
+
+    private void print(String text) {
+        byte[] bytes = (text + System.lineSeparator()).getBytes();
+        try {
+            sink.write(bytes, 0, bytes.length);
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to write message.", e);
+        }
+    }
+
+    /**
+     * Brings the render thread's copy of the canvas up to date by copying the rows changed since
+     * its last frame, then clears them on the canvas. A new canvas gets a new copy, so a delta
+     * renderer still starts it with a full frame.
+     */
+    private Canvas copyChanges() {
+        int width = canvas.getInnerWidth();
+        int height = canvas.getInnerHeight();
+        if (canvas != copied) {
+            copied = canvas;
+            frameCopy = new Canvas(width, height);
+            canvas.markDirty(1, height);
+        }
+        if (rowBuffer.length < width) {
+            rowBuffer = new char[width];
+        }
+        CanvasStorage storage = frameCopy.getStorage();
+        for (int row = canvas.nextDirtyRow(1); row >= 0 && row <= height; row = canvas.nextDirtyRow(row + 1)) {
+            canvas.copyRow(row, rowBuffer, 0);
+            storage.writeSpan(row - 1, 0, width - 1, rowBuffer, 0);
+            frameCopy.markDirty(row);
+        }
+        canvas.clearDirty();
+        return frameCopy;
+    }
+
+    /**
+     * Writes {@code text} without a line break through the session's sink, so that it follows the
+     * frames and messages of earlier commands without waiting for them to be written.
+     */
+    public synchronized void prompt(String text) {
+        byte[] bytes = text.getBytes();
+        try {
+            sink.write(bytes, 0, bytes.length);
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to write message.", e);
+        }
+        if (pump != null) {
+            pump.request(false);
+        }
+    }
+
+    /**
+     * Waits until every frame and message produced so far has been written. Returns at once when
+     * rendering is synchronous.
+     */
+    public void flush() {
+        FramePump p;
+        synchronized (this) {
+            p = pump;
+        }
+        if (p != null) {
+            try {
+                p.flush();
+            } catch (IOException e) {
+                throw new IllegalStateException("Unable to render canvas.", e);
+            }
+        }
+    }
+
+    public synchronized boolean isClosed() {
+        return closed;
+    }
+
+    public CommandStats getStats() {
+        return stats;
+    }
+
+    public synchronized Canvas getCanvas() {
+        return canvas;
+    }
+
+    /**
+     * When disabled, successful commands no longer render a frame; callers decide when to
+     * {@link #draw()}.
+     */
+    public synchronized void setAutoRender(boolean enabled) {
+        autoRender = enabled;
+    }
+
+    /**
+     * When enabled, commands no longer wait for their frame to be written: frames are encoded and
+     * written by a render thread, and frames that would queue up behind slow output are merged into
+     * the latest one. The render thread holds the session only to copy the rows changed since its
+     * last frame into a canvas of its own, and encodes that copy while commands carry on; a
+     * viewport, whose frames have a fixed size, is still rendered from the canvas itself. Call
+     * {@link #flush()} to wait for the output to catch up.
+     */
+    public void setAsyncRender(boolean enabled) {
+        FramePump stopped = null;
+        synchronized (this) {
+            if (enabled && pump == null) {
+                pump = new FramePump(sink, new Runnable() {
+                    @Override
+                    public void run() {
+                        Renderer target;
+                        Canvas frame;
+                        synchronized (CanvasSession.this) {
+                            if (canvas == null) {
+                                return;
+                            }
+                            if (viewport != null) {
+                                copied = null;
+                                frameCopy = null;
+                                render();
+                                return;
+                            }
+                            target = renderer;
+                            frame = copyChanges();
+                        }
+                        render(target, frame);
+                    }
+                });
+                pump.start();
+            } else if (!enabled) {
+                stopped = pump;
+                pump = null;
+            }
+        }
+        if (stopped != null) {
+            try {
+                stopped.close();
+            } catch (IOException e) {
+                throw new IllegalStateException("Unable to render canvas.", e);
+            }
+            synchronized (this) {
+                copied = null;
+                frameCopy = null;
+            }
+        }
+    }
+
+    /**
+     * Returns the sink frames and messages are written to.
+     */
+    public ByteSink getSink() {
+        return sink;
+    }
+
+    /**
+     * Chooses the storage backend for canvases created from now on; {@code null} picks one by size.
+     */
+    public synchronized void setStorageType(StorageType type) {
+        storageType = type;
+    }
+
+    /**
+     * When enabled, canvases created or opened from now on keep lines and rectangles in a
+     * {@link DisplayList} and paint them only where they are first read or written.
+     */
+    public synchronized void setRetained(boolean enabled) {
+        retained = enabled;
+    }
+
+    /**
+     * When enabled, canvases created or opened from now on keep a {@link RegionIndex}, and
+     * {@code B} recolours the whole region around its cell, painted or blank, through it.
+     */
+    public synchronized void setRegionIndex(boolean enabled) {
+        indexRegions = enabled;
+    }
+
+    /**
+     * Sets the colours {@code E} uses for each character.
+     */
+    public synchronized void setPalette(Palette palette) {
+        this.palette = palette;
+    }
+
+    /**
+     * Caps the memory retained for undo and redo; the oldest entries are dropped first.
+     */
+    public synchronized void setHistoryLimit(long bytes) {
+        history.setLimit(bytes);
+    }
+
+    /**
+     * Replaces the canvas outside of any command, which also discards the undo history.
+     */
+    public synchronized void setCanvas(Canvas c) {
+        canvas = c;
+        history.clear();
+    }
+
+    public synchronized void setFillEngine(FillEngine engine) {
+        fillEngine = engine;
+    }
+
+    public synchronized void setRenderer(Renderer r) {
+        renderer = r;
+    }
+}
\ No newline at end of file
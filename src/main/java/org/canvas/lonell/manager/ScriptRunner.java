@@ -0,0 +1,70 @@
+package org.canvas.lonell.manager;
+
+import org.canvas.lonell.command.Command;
+import org.canvas.lonell.command.CommandParser;
+import org.canvas.lonell.utilities.MappedLineReader;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Replays a command file against a session without rendering after every command. A frame is
+ * drawn every {@code renderEvery} commands (only at the end when zero) and always once at the end.
+ */
+public class ScriptRunner {
+
+    private final CanvasSession session;
+    private final int renderEvery;
+    private final CommandParser parser = new CommandParser();
+    private final Command command = new Command();
+    private long commands;
+    private long bytes;
+    private long elapsed;
+
+    public ScriptRunner(CanvasSession session, int renderEvery) {
+        this.session = session;
+        this.renderEvery = renderEvery;
+    }
+
+    public void run(Path file) throws IOException {
+        long start = System.nanoTime();
+        session.setAutoRender(false);
+
+        try (MappedLineReader reader = new MappedLineReader(file)) {
+            bytes = reader.size();
+            while (!session.isClosed() && reader.next()) {
+                if (!parser.parse(reader.bytes(), 0, reader.length(), command)) {
+                    continue;
+                }
+                session.execute(command);
+                commands++;
+
+                if (renderEvery > 0 && commands % renderEvery == 0 && session.getCanvas() != null) {
+                    session.draw();
+                }
+            }
+        } finally {
+            session.setAutoRender(true);
+        }
+
+        if (session.getCanvas() != null && (renderEvery <= 0 || commands % renderEvery != 0)) {
+            session.draw();
+        }
+        session.flush();
+        elapsed = System.nanoTime() - start;
+    }
+
+    public long getCommands() {
+        return commands;
+    }
+
+    public long getElapsedNanos() {
+        return elapsed;
+    }
+
+    public String summary() {
+        double seconds = elapsed / 1e9;
+        return String.format("Executed %d commands (%d bytes) in %.3f s, %.0f commands/s.",
+                commands, bytes, seconds, seconds > 0 ? commands / seconds : 0);
+    }
+}
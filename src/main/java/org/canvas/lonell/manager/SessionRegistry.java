@@ -0,0 +1,43 @@
+package org.canvas.lonell.manager;
+
+import org.canvas.lonell.render.ByteSink;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Holds any number of independent {@link CanvasSession}s by id. Lookups are lock-free and each
+ * session only synchronises on itself, so different sessions can be driven from different threads
+ * without contending with each other.
+ */
+public class SessionRegistry {
+
+    private final ConcurrentMap<String, CanvasSession> sessions = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the session registered under {@code id}, creating one that writes to {@code sink} if
+     * there is none yet.
+     */
+    public CanvasSession open(String id, ByteSink sink) {
+        CanvasSession session = sessions.get(id);
+        if (session != null) {
+            return session;
+        }
+
+        CanvasSession created = new CanvasSession(sink);
+        session = sessions.putIfAbsent(id, created);
+        return session != null ? session : created;
+    }
+
+    public CanvasSession get(String id) {
+        return sessions.get(id);
+    }
+
+    public CanvasSession close(String id) {
+        return sessions.remove(id);
+    }
+
+    public int size() {
+        return sessions.size();
+    }
+}
@@ -0,0 +1,222 @@
+package org.canvas.lonell.metrics;
+
+import org.canvas.lonell.command.Command;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanNotificationInfo;
+import javax.management.Notification;
+import javax.management.NotificationBroadcasterSupport;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-command counters of one session: executions, failures, a latency histogram, cells written and
+ * bytes rendered. Recording is a handful of array updates under an uncontended lock, taken while
+ * the session already holds its own. Fills and renders slower than the threshold are announced as
+ * JMX notifications of type {@link #SLOW_FILL} or {@link #SLOW_RENDER} carrying the duration in
+ * nanoseconds.
+ */
+public class CommandStats extends NotificationBroadcasterSupport implements CommandStatsMXBean {
+
+    /**
+     * Key under which frames drawn outside of a command are recorded.
+     */
+    public static final char DRAW = '\u0002';
+    public static final String SLOW_FILL = "org.canvas.lonell.slow.fill";
+    public static final String SLOW_RENDER = "org.canvas.lonell.slow.render";
+    public static final long DEFAULT_SLOW_THRESHOLD = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private static final int KEYS = 128;
+
+    private final Entry[] entries = new Entry[KEYS];
+    private volatile long slowThreshold = DEFAULT_SLOW_THRESHOLD;
+    private long sequence;
+
+    public synchronized void record(char opcode, boolean failed, long nanos, long cells, long bytes) {
+        int key = opcode < KEYS ? opcode : Command.INVALID;
+        Entry entry = entries[key];
+        if (entry == null) {
+            entry = new Entry();
+            entries[key] = entry;
+        }
+        if (failed) {
+            entry.failures++;
+        }
+        entry.latency.record(nanos);
+        entry.cells += cells;
+        entry.bytes += bytes;
+    }
+
+    /**
+     * Emits a {@link #SLOW_FILL} notification if {@code nanos} exceeds the threshold.
+     */
+    public void fillTook(long nanos) {
+        if (nanos >= slowThreshold) {
+            notifySlow(SLOW_FILL, "Fill took ", nanos);
+        }
+    }
+
+    /**
+     * Emits a {@link #SLOW_RENDER} notification if {@code nanos} exceeds the threshold.
+     */
+    public void renderTook(long nanos) {
+        if (nanos >= slowThreshold) {
+            notifySlow(SLOW_RENDER, "Render took ", nanos);
+        }
+    }
+
+    private void notifySlow(String type, String text, long nanos) {
+        long number;
+        synchronized (this) {
+            number = ++sequence;
+        }
+        Notification notification = new Notification(type, this, number, System.currentTimeMillis(),
+                text + TimeUnit.NANOSECONDS.toMillis(nanos) + " ms.");
+        notification.setUserData(nanos);
+        sendNotification(notification);
+    }
+
+    @Override
+    public MBeanNotificationInfo[] getNotificationInfo() {
+        return new MBeanNotificationInfo[]{new MBeanNotificationInfo(new String[]{SLOW_FILL, SLOW_RENDER},
+                Notification.class.getName(), "A fill or render exceeded the slow threshold.")};
+    }
+
+    /**
+     * Registers this instance with the platform MBean server under {@code name}, replacing any
+     * bean already registered there.
+     */
+    public void register(String name) {
+        try {
+            ObjectName objectName = new ObjectName("org.canvas.lonell:type=CommandStats,name=" + ObjectName.quote(name));
+            try {
+                ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+            } catch (InstanceAlreadyExistsException e) {
+                ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+                ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+            }
+        } catch (JMException e) {
+            throw new IllegalStateException("Unable to register command statistics.", e);
+        }
+    }
+
+    @Override
+    public synchronized long getCommands() {
+        long total = 0;
+        for (int key = 0; key < KEYS; key++) {
+            if (entries[key] != null && key != DRAW) {
+                total += entries[key].latency.getCount();
+            }
+        }
+        return total;
+    }
+
+    @Override
+    public synchronized long getFailures() {
+        long total = 0;
+        for (Entry entry : entries) {
+            if (entry != null) {
+                total += entry.failures;
+            }
+        }
+        return total;
+    }
+
+    @Override
+    public synchronized long getCellsWritten() {
+        long total = 0;
+        for (Entry entry : entries) {
+            if (entry != null) {
+                total += entry.cells;
+            }
+        }
+        return total;
+    }
+
+    @Override
+    public synchronized long getBytesRendered() {
+        long total = 0;
+        for (Entry entry : entries) {
+            if (entry != null) {
+                total += entry.bytes;
+            }
+        }
+        return total;
+    }
+
+    @Override
+    public synchronized Map<String, CommandSummary> getByCommand() {
+        Map<String, CommandSummary> summaries = new LinkedHashMap<>();
+        for (int key = 0; key < KEYS; key++) {
+            Entry entry = entries[key];
+            if (entry != null) {
+                LatencyHistogram latency = entry.latency;
+                summaries.put(name((char) key), new CommandSummary(latency.getCount(), entry.failures,
+                        entry.cells, entry.bytes, micros(latency.getMean()), micros(latency.getPercentile(50)),
+                        micros(latency.getPercentile(99)), micros(latency.getMax())));
+            }
+        }
+        return summaries;
+    }
+
+    /**
+     * Renders the figures as a fixed-width table, one command type per line.
+     */
+    public synchronized String format() {
+        String newline = System.lineSeparator();
+        StringBuilder out = new StringBuilder(String.format("%-7s%9s%9s%11s%11s%11s%14s%14s",
+                "command", "count", "failed", "p50 us", "p99 us", "max us", "cells", "bytes"));
+        for (Map.Entry<String, CommandSummary> entry : getByCommand().entrySet()) {
+            CommandSummary s = entry.getValue();
+            out.append(newline).append(String.format("%-7s%9d%9d%11d%11d%11d%14d%14d", entry.getKey(),
+                    s.getCount(), s.getFailures(), s.getP50Micros(), s.getP99Micros(), s.getMaxMicros(),
+                    s.getCellsWritten(), s.getBytesRendered()));
+        }
+        return out.toString();
+    }
+
+    @Override
+    public long getSlowThresholdMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(slowThreshold);
+    }
+
+    @Override
+    public void setSlowThresholdMillis(long millis) {
+        slowThreshold = TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+
+    @Override
+    public synchronized void reset() {
+        for (int key = 0; key < KEYS; key++) {
+            entries[key] = null;
+        }
+    }
+
+    private static String name(char key) {
+        switch (key) {
+            case Command.INVALID:
+                return "?";
+            case Command.STATS:
+                return "STATS";
+            case DRAW:
+                return "draw";
+            default:
+                return String.valueOf(key);
+        }
+    }
+
+    private static long micros(long nanos) {
+        return TimeUnit.NANOSECONDS.toMicros(nanos);
+    }
+
+    private static final class Entry {
+        final LatencyHistogram latency = new LatencyHistogram();
+        long failures;
+        long cells;
+        long bytes;
+    }
+}
@@ -0,0 +1,30 @@
+package org.canvas.lonell.metrics;
+
+import java.util.Map;
+
+/**
+ * Management interface of {@link CommandStats}, registered as
+ * {@code org.canvas.lonell:type=CommandStats,name=<session>}.
+ */
+public interface CommandStatsMXBean {
+
+    long getCommands();
+
+    long getFailures();
+
+    long getCellsWritten();
+
+    long getBytesRendered();
+
+    /**
+     * Figures per command type, keyed by the command name as typed ({@code "B"}, {@code "STATS"}),
+     * with {@code "draw"} for frames rendered outside a command and {@code "?"} for unknown commands.
+     */
+    Map<String, CommandSummary> getByCommand();
+
+    long getSlowThresholdMillis();
+
+    void setSlowThresholdMillis(long millis);
+
+    void reset();
+}
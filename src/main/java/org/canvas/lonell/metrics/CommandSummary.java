@@ -0,0 +1,64 @@
+package org.canvas.lonell.metrics;
+
+import java.beans.ConstructorProperties;
+
+/**
+ * Point-in-time figures for one command type, as exposed over JMX. Times are in microseconds.
+ */
+public class CommandSummary {
+
+    private final long count;
+    private final long failures;
+    private final long cellsWritten;
+    private final long bytesRendered;
+    private final long meanMicros;
+    private final long p50Micros;
+    private final long p99Micros;
+    private final long maxMicros;
+
+    @ConstructorProperties({"count", "failures", "cellsWritten", "bytesRendered",
+            "meanMicros", "p50Micros", "p99Micros", "maxMicros"})
+    public CommandSummary(long count, long failures, long cellsWritten, long bytesRendered,
+                          long meanMicros, long p50Micros, long p99Micros, long maxMicros) {
+        this.count = count;
+        this.failures = failures;
+        this.cellsWritten = cellsWritten;
+        this.bytesRendered = bytesRendered;
+        this.meanMicros = meanMicros;
+        this.p50Micros = p50Micros;
+        this.p99Micros = p99Micros;
+        this.maxMicros = maxMicros;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getFailures() {
+        return failures;
+    }
+
+    public long getCellsWritten() {
+        return cellsWritten;
+    }
+
+    public long getBytesRendered() {
+        return bytesRendered;
+    }
+
+    public long getMeanMicros() {
+        return meanMicros;
+    }
+
+    public long getP50Micros() {
+        return p50Micros;
+    }
+
+    public long getP99Micros() {
+        return p99Micros;
+    }
+
+    public long getMaxMicros() {
+        return maxMicros;
+    }
+}
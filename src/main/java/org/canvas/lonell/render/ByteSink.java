@@ -0,0 +1,184 @@
+package org.canvas.lonell.render;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+
+/**
+ * Destination for encoded frames. Each {@link #write(byte[], int, int)} is handed to the underlying
+ * stream or channel as a single call. A sink created with {@link #console()} looks up
+ * {@code System.out} on every write so that redirected output is honoured. A staged sink keeps
+ * writes in memory until {@link #drain()} sends them on, so a slow stream holds up only the thread
+ * draining it. A place in the staged output can be reserved for a frame that is encoded later, so
+ * the frame still comes before whatever other threads write after asking for it.
+ */
+public class ByteSink {
+
+    private final OutputStream out;
+    private final WritableByteChannel channel;
+    private ByteBuffer wrapped;
+    private long written;
+    private volatile boolean staged;
+    private byte[] stage = new byte[0];
+    private byte[] spare = new byte[0];
+    private int stagedLength;
+    private Thread writer;
+    private boolean reserved;
+    private byte[] deferred = new byte[0];
+    private int deferredLength;
+    private int nextReserved = -1;
+
+    private ByteSink(OutputStream out, WritableByteChannel channel) {
+        this.out = out;
+        this.channel = channel;
+    }
+
+    public ByteSink(OutputStream out) {
+        this(out, null);
+    }
+
+    public ByteSink(WritableByteChannel channel) {
+        this(null, channel);
+    }
+
+    public static ByteSink console() {
+        return new ByteSink(null, null);
+    }
+
+    public void write(byte[] bytes, int offset, int length) throws IOException {
+        if (staged && stage(bytes, offset, length)) {
+            return;
+        }
+        written += length;
+        send(bytes, offset, length);
+    }
+
+    private void send(byte[] bytes, int offset, int length) throws IOException {
+        if (channel != null) {
+            if (wrapped == null || wrapped.array() != bytes) {
+                wrapped = ByteBuffer.wrap(bytes);
+            }
+            wrapped.limit(offset + length).position(offset);
+            while (wrapped.hasRemaining()) {
+                channel.write(wrapped);
+            }
+            return;
+        }
+
+        OutputStream stream = out != null ? out : System.out;
+        stream.write(bytes, offset, length);
+        stream.flush();
+    }
+
+    /**
+     * Writes the first {@code lengths[i]} bytes of each of the first {@code count} buffers, in
+     * order, flushing once at the end.
+     */
+    public void write(byte[][] buffers, int[] lengths, int count) throws IOException {
+        if (channel != null || staged) {
+            for (int i = 0; i < count; i++) {
+                write(buffers[i], 0, lengths[i]);
+            }
+            return;
+        }
+
+        OutputStream stream = out != null ? out : System.out;
+        for (int i = 0; i < count; i++) {
+            stream.write(buffers[i], 0, lengths[i]);
+            written += lengths[i];
+        }
+        stream.flush();
+    }
+
+    /**
+     * Starts or stops keeping writes in memory. Anything still staged when staging stops is sent
+     * by the next {@link #drain()}.
+     */
+    public synchronized void setStaged(boolean staged) {
+        this.staged = staged;
+    }
+
+    private synchronized boolean stage(byte[] bytes, int offset, int length) {
+        if (!staged) {
+            return false;
+        }
+        if (reserved && Thread.currentThread() != writer) {
+            if (deferredLength + length > deferred.length) {
+                deferred = Arrays.copyOf(deferred, Math.max(deferredLength + length, deferred.length * 2));
+            }
+            System.arraycopy(bytes, offset, deferred, deferredLength, length);
+            deferredLength += length;
+        } else {
+            append(bytes, offset, length);
+        }
+        written += length;
+        return true;
+    }
+
+    private void append(byte[] bytes, int offset, int length) {
+        if (stagedLength + length > stage.length) {
+            stage = Arrays.copyOf(stage, Math.max(stagedLength + length, stage.length * 2));
+        }
+        System.arraycopy(bytes, offset, stage, stagedLength, length);
+        stagedLength += length;
+    }
+
+    /**
+     * Reserves the current end of the staged output for a frame {@code writer} will encode: until
+     * {@link #release()}, writes from any other thread are kept behind it. Reserving again while a
+     * frame is held places the next frame after what other threads have written so far.
+     */
+    public synchronized void reserve(Thread writer) {
+        if (!reserved) {
+            reserved = true;
+            this.writer = writer;
+        } else if (nextReserved < 0) {
+            nextReserved = deferredLength;
+        }
+    }
+
+    /**
+     * Ends the frame held by {@link #reserve(Thread)}, staging what other threads wrote meanwhile
+     * after it, up to the place reserved for the next frame if there is one.
+     */
+    public synchronized void release() {
+        if (!reserved) {
+            return;
+        }
+        int end = nextReserved < 0 ? deferredLength : nextReserved;
+        append(deferred, 0, end);
+        System.arraycopy(deferred, end, deferred, 0, deferredLength - end);
+        deferredLength -= end;
+        reserved = nextReserved >= 0;
+        nextReserved = -1;
+    }
+
+    /**
+     * Sends everything staged so far to the underlying stream or channel and returns its length.
+     * Writes may be staged meanwhile; only one thread may drain a sink at a time.
+     */
+    public int drain() throws IOException {
+        byte[] bytes;
+        int length;
+        synchronized (this) {
+            bytes = stage;
+            length = stagedLength;
+            stage = spare;
+            spare = bytes;
+            stagedLength = 0;
+        }
+        if (length > 0) {
+            send(bytes, 0, length);
+        }
+        return length;
+    }
+
+    /**
+     * Returns the number of bytes handed to this sink so far.
+     */
+    public long getBytesWritten() {
+        return written;
+    }
+}
@@ -0,0 +1,103 @@
+package org.canvas.lonell.render;
+
+import org.canvas.lonell.entity.Canvas;
+
+import java.io.IOException;
+
+/**
+ * Emits only the rows changed since the previous render. The first render of a canvas is always a
+ * full frame; after that each dirty row is written either as a row-indexed patch
+ * ({@code "<row>:|...|"}) or, for terminals, as an ANSI cursor-addressed row update.
+ */
+public class DeltaRenderer extends FrameRenderer {
+
+    public enum Mode {
+        PATCH,
+        ANSI
+    }
+
+    private static final byte ESC = 0x1b;
+    private static final int PREFIX_BYTES = 24;
+
+    private final Mode mode;
+    private Canvas last;
+
+    public DeltaRenderer(Mode mode) {
+        this(ByteSink.console(), mode);
+    }
+
+    public DeltaRenderer(ByteSink sink, Mode mode) {
+        super(sink);
+        this.mode = mode;
+    }
+
+    /**
+     * Makes the next render a full frame, for when something else has drawn over the output.
+     */
+    public void invalidate() {
+        last = null;
+    }
+
+    @Override
+    public void render(Canvas canvas) throws IOException {
+        if (canvas != last) {
+            last = canvas;
+            if (mode == Mode.ANSI) {
+                sink.write(new byte[]{ESC, '[', 'H', ESC, '[', '2', 'J'}, 0, 7);
+            }
+            super.render(canvas);
+            return;
+        }
+
+        int rows = 0;
+        for (int i = canvas.nextDirtyRow(1); i >= 0 && i < canvas.getHeight() - 1; i = canvas.nextDirtyRow(i + 1)) {
+            rows++;
+        }
+        if (rows == 0) {
+            return;
+        }
+
+        ensureCapacity(canvas, rows, Math.min(rows + 1, 1 << 16) * PREFIX_BYTES);
+        int rowBytes = rowBytes(canvas) + PREFIX_BYTES;
+        int pos = 0;
+        for (int i = canvas.nextDirtyRow(1); i >= 0 && i < canvas.getHeight() - 1; i = canvas.nextDirtyRow(i + 1)) {
+            pos = flushIfFull(pos, rowBytes);
+            if (mode == Mode.ANSI) {
+                pos = putCursor(i + 1, pos);
+            } else {
+                pos = putNumber(i, pos);
+                buffer[pos++] = ':';
+            }
+            pos = putRow(canvas, i, pos);
+        }
+        if (mode == Mode.ANSI) {
+            pos = flushIfFull(pos, PREFIX_BYTES);
+            pos = putCursor(canvas.getHeight() + 1, pos);
+        }
+
+        sink.write(buffer, 0, pos);
+        canvas.clearDirty();
+    }
+
+    private int putCursor(int line, int pos) {
+        buffer[pos++] = ESC;
+        buffer[pos++] = '[';
+        pos = putNumber(line, pos);
+        buffer[pos++] = ';';
+        buffer[pos++] = '1';
+        buffer[pos++] = 'H';
+        return pos;
+    }
+
+    private int putNumber(int value, int pos) {
+        int digits = 1;
+        for (int v = value; v >= 10; v /= 10) {
+            digits++;
+        }
+        for (int i = pos + digits - 1; i >= pos; i--) {
+            buffer[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        return pos + digits;
+    }
+}
@@ -0,0 +1,167 @@
+package org.canvas.lonell.render;
+
+import java.io.IOException;
+
+/**
+ * Moves rendering and output off the thread applying commands. The sink is staged, so frames and
+ * messages land in memory, and a render thread encodes a frame with the given encoder and then
+ * drains the sink to the real output. Requesting a frame reserves its place in the sink, so
+ * messages written afterwards follow it even though it is encoded later. Frames requested while it
+ * is still writing are coalesced into one, encoded from the latest state once the output has
+ * caught up; a delta renderer then sends the union of the rows changed in between.
+ * {@link #flush()} waits for the frame that was requested last, so the final state is always
+ * written.
+ */
+public class FramePump implements Runnable {
+
+    private final ByteSink sink;
+    private final Runnable encoder;
+    private Thread thread;
+    private boolean frameRequested;
+    private boolean drainRequested;
+    private boolean busy;
+    private boolean closed;
+    private long requests;
+    private long frames;
+    private Exception failure;
+
+    /**
+     * Creates a pump draining {@code sink}. The encoder renders a frame into the sink and takes
+     * whatever lock guards the canvas itself, ideally only long enough to copy what it encodes.
+     */
+    public FramePump(ByteSink sink, Runnable encoder) {
+        this.sink = sink;
+        this.encoder = encoder;
+    }
+
+    public synchronized void start() {
+        sink.setStaged(true);
+        thread = new Thread(this, "canvas-render");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Asks for the staged output to be written, after encoding a new frame if {@code frame}.
+     * Never blocks on the output.
+     */
+    public synchronized void request(boolean frame) {
+        if (frame) {
+            if (!frameRequested) {
+                sink.reserve(thread);
+            }
+            frameRequested = true;
+            requests++;
+        }
+        drainRequested = true;
+        notifyAll();
+    }
+
+    @Override
+    public void run() {
+        while (true) {
+            boolean frame;
+            synchronized (this) {
+                while (!frameRequested && !drainRequested && !closed) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        closed = true;
+                    }
+                }
+                if (!frameRequested && !drainRequested) {
+                    notifyAll();
+                    return;
+                }
+                frame = frameRequested;
+                frameRequested = false;
+                drainRequested = false;
+                busy = true;
+            }
+
+            Exception error = null;
+            try {
+                if (frame) {
+                    try {
+                        encoder.run();
+                    } finally {
+                        sink.release();
+                    }
+                }
+                sink.drain();
+            } catch (IOException | RuntimeException e) {
+                error = e;
+            }
+
+            synchronized (this) {
+                if (frame) {
+                    frames++;
+                }
+                if (failure == null) {
+                    failure = error;
+                }
+                busy = false;
+                notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Waits until everything requested so far has been encoded and written, then rethrows the
+     * first failure since the last flush. Must not be called while holding the encoder's lock.
+     */
+    public synchronized void flush() throws IOException {
+        while (frameRequested || drainRequested || busy) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+        Exception e = failure;
+        failure = null;
+        if (e instanceof IOException) {
+            throw (IOException) e;
+        }
+        if (e != null) {
+            throw (RuntimeException) e;
+        }
+    }
+
+    /**
+     * Writes what is still pending, stops the render thread and leaves the sink unstaged.
+     */
+    public void close() throws IOException {
+        Thread t;
+        synchronized (this) {
+            closed = true;
+            notifyAll();
+            t = thread;
+        }
+        if (t != null) {
+            try {
+                t.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        sink.setStaged(false);
+        sink.drain();
+    }
+
+    /**
+     * Returns how many frames have been requested.
+     */
+    public synchronized long getRequests() {
+        return requests;
+    }
+
+    /**
+     * Returns how many frames have been encoded; the difference from {@link #getRequests()} is the
+     * number of frames coalesced away.
+     */
+    public synchronized long getFrames() {
+        return frames;
+    }
+}
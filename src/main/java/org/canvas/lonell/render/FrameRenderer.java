@@ -0,0 +1,231 @@
+package org.canvas.lonell.render;
+
+import org.canvas.lonell.entity.Canvas;
+import org.canvas.lonell.utilities.Workers;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Renders the whole canvas, borders included, into a reusable byte buffer and hands it to the sink
+ * in one write. Cells are encoded as UTF-8 so plain ASCII frames cost one byte per cell. Frames
+ * larger than {@link #MAX_BUFFER} are written in as few buffer-sized chunks as possible.
+ * <p>
+ * Canvases of at least {@link Workers#PARALLEL_THRESHOLD} cells are encoded in row stripes on a
+ * pool, each stripe into its own segment buffer, and the segments are written in order.
+ */
+public class FrameRenderer implements Renderer {
+
+    public static final int MAX_BUFFER = 16 * 1024 * 1024;
+    private static final int MAX_BYTES_PER_CHAR = 3;
+
+    protected final ByteSink sink;
+    protected final byte[] newline = System.lineSeparator().getBytes();
+    protected byte[] buffer = new byte[0];
+    private final ForkJoinPool pool;
+    private FrameRenderer[] segments = new FrameRenderer[0];
+    private byte[][] segmentBuffers = new byte[0][];
+    private int[] segmentLengths = new int[0];
+
+    public FrameRenderer() {
+        this(ByteSink.console());
+    }
+
+    public FrameRenderer(ByteSink sink) {
+        this(sink, Workers.pool());
+    }
+
+    /**
+     * Uses {@code pool} to encode large frames; with a {@code null} pool every frame is encoded on
+     * the calling thread.
+     */
+    public FrameRenderer(ByteSink sink, ForkJoinPool pool) {
+        this.sink = sink;
+        this.pool = pool;
+    }
+
+    @Override
+    public void render(Canvas canvas) throws IOException {
+        if (pool != null && (long) canvas.getInnerWidth() * canvas.getInnerHeight() >= Workers.PARALLEL_THRESHOLD) {
+            renderStriped(canvas);
+            canvas.clearDirty();
+            return;
+        }
+
+        ensureCapacity(canvas, canvas.getHeight());
+        int rowBytes = rowBytes(canvas);
+        int pos = putBorder(canvas, 0);
+
+        for (int i = 1; i < canvas.getHeight() - 1; i++) {
+            pos = flushIfFull(pos, rowBytes);
+            pos = putRow(canvas, i, pos);
+        }
+
+        pos = flushIfFull(pos, rowBytes);
+        pos = putBorder(canvas, pos);
+        sink.write(buffer, 0, pos);
+        canvas.clearDirty();
+    }
+
+    private void renderStriped(Canvas canvas) throws IOException {
+        int parts = pool.getParallelism();
+        if (segments.length < parts) {
+            segments = new FrameRenderer[parts];
+            for (int i = 0; i < parts; i++) {
+                segments[i] = new FrameRenderer(null, null);
+            }
+            segmentBuffers = new byte[parts][];
+            segmentLengths = new int[parts];
+        }
+
+        int height = canvas.getInnerHeight();
+        int rowsPerSegment = Math.max(1, Math.min((height + parts - 1) / parts, MAX_BUFFER / parts / rowBytes(canvas) - 2));
+        int[] firstRows = new int[parts];
+        int row = 1;
+        while (row <= height) {
+            int count = 0;
+            for (; count < parts && row <= height; count++) {
+                firstRows[count] = row;
+                row += rowsPerSegment;
+            }
+            pool.invoke(new SegmentAction(canvas, firstRows, rowsPerSegment, 0, count));
+
+            for (int i = 0; i < count; i++) {
+                segmentBuffers[i] = segments[i].buffer;
+            }
+            sink.write(segmentBuffers, segmentLengths, count);
+        }
+    }
+
+    /**
+     * Encodes rows {@code first} to {@code last} of {@code canvas} into this renderer's own buffer,
+     * adding the top and bottom border when the range touches them, and returns the byte count.
+     */
+    protected int encode(Canvas canvas, int first, int last) {
+        ensureCapacity(canvas, last - first + 3);
+        int pos = 0;
+        if (first == 1) {
+            pos = putBorder(canvas, pos);
+        }
+        for (int i = first; i <= last; i++) {
+            pos = putRow(canvas, i, pos);
+        }
+        if (last == canvas.getInnerHeight()) {
+            pos = putBorder(canvas, pos);
+        }
+        return pos;
+    }
+
+    private final class SegmentAction extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Canvas canvas;
+        private final int[] firstRows;
+        private final int rowsPerSegment;
+        private final int from;
+        private final int to;
+
+        SegmentAction(Canvas canvas, int[] firstRows, int rowsPerSegment, int from, int to) {
+            this.canvas = canvas;
+            this.firstRows = firstRows;
+            this.rowsPerSegment = rowsPerSegment;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new SegmentAction(canvas, firstRows, rowsPerSegment, from, middle),
+                        new SegmentAction(canvas, firstRows, rowsPerSegment, middle, to));
+                return;
+            }
+            int first = firstRows[from];
+            int last = Math.min(canvas.getInnerHeight(), first + rowsPerSegment - 1);
+            segmentLengths[from] = segments[from].encode(canvas, first, last);
+        }
+    }
+
+    /**
+     * Makes room for {@code rows} encoded rows of {@code canvas} plus {@code extra} bytes.
+     */
+    protected void ensureCapacity(Canvas canvas, int rows, int extra) {
+        long rowBytes = rowBytes(canvas);
+        long needed = Math.max(rowBytes + extra, Math.min((long) rows * rowBytes + extra, MAX_BUFFER));
+        if (buffer.length < needed) {
+            buffer = new byte[(int) needed];
+        }
+    }
+
+    protected void ensureCapacity(Canvas canvas, int rows) {
+        ensureCapacity(canvas, rows, 0);
+    }
+
+    protected int rowBytes(Canvas canvas) {
+        return canvas.getWidth() * MAX_BYTES_PER_CHAR + newline.length;
+    }
+
+    /**
+     * Writes out the buffered bytes if another {@code needed} bytes would not fit, returning the
+     * position to continue encoding at.
+     */
+    protected int flushIfFull(int pos, int needed) throws IOException {
+        if (pos + needed <= buffer.length) {
+            return pos;
+        }
+        sink.write(buffer, 0, pos);
+        return 0;
+    }
+
+    protected int putBorder(Canvas canvas, int pos) {
+        int end = pos + canvas.getWidth();
+        Arrays.fill(buffer, pos, end, (byte) Canvas.HORIZONTAL_BORDER);
+        return putNewline(end);
+    }
+
+    protected int putRow(Canvas canvas, int i, int pos) {
+        int width = canvas.getInnerWidth();
+
+        buffer[pos++] = (byte) Canvas.VERTICAL_BORDER;
+        int col = 1;
+        while (col <= width) {
+            char c = canvas.get(i, col);
+            int end = canvas.runEnd(i, col, width);
+            if (c < 0x80) {
+                Arrays.fill(buffer, pos, pos + end - col, (byte) c);
+                pos += end - col;
+            } else {
+                for (int j = col; j < end; j++) {
+                    pos = putChar(c, pos);
+                }
+            }
+            col = end;
+        }
+        buffer[pos++] = (byte) Canvas.VERTICAL_BORDER;
+        return putNewline(pos);
+    }
+
+    protected int putNewline(int pos) {
+        System.arraycopy(newline, 0, buffer, pos, newline.length);
+        return pos + newline.length;
+    }
+
+    protected int putChar(char c, int pos) {
+        if (c < 0x80) {
+            buffer[pos++] = (byte) c;
+        } else if (c < 0x800) {
+            buffer[pos++] = (byte) (0xc0 | (c >> 6));
+            buffer[pos++] = (byte) (0x80 | (c & 0x3f));
+        } else if (Character.isSurrogate(c)) {
+            buffer[pos++] = (byte) '?';
+        } else {
+            buffer[pos++] = (byte) (0xe0 | (c >> 12));
+            buffer[pos++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+            buffer[pos++] = (byte) (0x80 | (c & 0x3f));
+        }
+        return pos;
+    }
+}
@@ -0,0 +1,13 @@
+package org.canvas.lonell.render;
+
+import org.canvas.lonell.entity.Canvas;
+
+import java.io.IOException;
+
+/**
+ * Writes the visible state of a canvas after a command has been applied.
+ */
+public interface Renderer {
+
+    void render(Canvas canvas) throws IOException;
+}
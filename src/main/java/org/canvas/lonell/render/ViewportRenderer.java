@@ -0,0 +1,152 @@
+package org.canvas.lonell.render;
+
+import org.canvas.lonell.entity.Canvas;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Renders a window of the canvas instead of all of it. At scale 1 the window shows its cells as
+ * they are, read run by run; at a larger scale it is an overview in which every character stands
+ * for a square block of cells and shows the painted character covering most of {@link #SAMPLES}
+ * evenly spaced rows of the block, or a blank if they are empty. Either way a frame reads a fixed
+ * number of rows per character on screen, whatever the size of the canvas behind it.
+ */
+public class ViewportRenderer extends FrameRenderer {
+
+    public static final int SAMPLES = 4;
+
+    private final char[] seen = new char[16];
+    private final long[] weights = new long[16];
+    private int left = 1;
+    private int top = 1;
+    private int columns = 1;
+    private int rows = 1;
+    private int scale = 1;
+
+    public ViewportRenderer(ByteSink sink) {
+        super(sink, null);
+    }
+
+    /**
+     * Shows {@code columns} x {@code rows} characters starting at canvas column {@code left}, row
+     * {@code top}, each covering {@code scale} x {@code scale} cells. The window is clipped to the
+     * canvas when rendered.
+     */
+    public void setWindow(int left, int top, int columns, int rows, int scale) {
+        this.left = left;
+        this.top = top;
+        this.columns = columns;
+        this.rows = rows;
+        this.scale = scale;
+    }
+
+    @Override
+    public void render(Canvas canvas) throws IOException {
+        int visibleColumns = visible(columns, left, canvas.getInnerWidth());
+        int visibleRows = visible(rows, top, canvas.getInnerHeight());
+        ensureCapacity(canvas, visibleRows + 2);
+        int rowBytes = rowBytes(canvas);
+        int pos = putBorder(visibleColumns, 0);
+
+        for (int i = 0; i < visibleRows; i++) {
+            pos = flushIfFull(pos, rowBytes);
+            int row = top + i * scale;
+            buffer[pos++] = (byte) Canvas.VERTICAL_BORDER;
+            if (scale == 1) {
+                pos = putCells(canvas, row, left, left + visibleColumns - 1, pos);
+            } else {
+                int height = Math.min(scale, canvas.getInnerHeight() - row + 1);
+                for (int j = 0; j < visibleColumns; j++) {
+                    int col = left + j * scale;
+                    int width = Math.min(scale, canvas.getInnerWidth() - col + 1);
+                    pos = putChar(summarise(canvas, row, col, height, width), pos);
+                }
+            }
+            buffer[pos++] = (byte) Canvas.VERTICAL_BORDER;
+            pos = putNewline(pos);
+        }
+
+        pos = flushIfFull(pos, rowBytes);
+        pos = putBorder(visibleColumns, pos);
+        sink.write(buffer, 0, pos);
+        canvas.clearDirty();
+    }
+
+    private int visible(int count, int from, int inner) {
+        if (from > inner) {
+            return 0;
+        }
+        return (int) Math.min(count, ((long) inner - from) / scale + 1);
+    }
+
+    @Override
+    protected int rowBytes(Canvas canvas) {
+        return (columns + 2) * 3 + newline.length;
+    }
+
+    private int putBorder(int visibleColumns, int pos) {
+        int end = pos + visibleColumns + 2;
+        Arrays.fill(buffer, pos, end, (byte) Canvas.HORIZONTAL_BORDER);
+        return putNewline(end);
+    }
+
+    private int putCells(Canvas canvas, int row, int from, int to, int pos) {
+        int col = from;
+        while (col <= to) {
+            char c = canvas.get(row, col);
+            int end = canvas.runEnd(row, col, to);
+            if (c < 0x80) {
+                Arrays.fill(buffer, pos, pos + end - col, (byte) c);
+                pos += end - col;
+            } else {
+                for (int j = col; j < end; j++) {
+                    pos = putChar(c, pos);
+                }
+            }
+            col = end;
+        }
+        return pos;
+    }
+
+    /**
+     * Returns the painted character covering most of the sampled rows of the block, or a blank.
+     * Each sampled row is read run by run, so vertical strokes are always seen.
+     */
+    private char summarise(Canvas canvas, int row, int col, int height, int width) {
+        int sampleRows = Math.min(SAMPLES, height);
+        int last = col + width - 1;
+        int colours = 0;
+        for (int i = 0; i < sampleRows; i++) {
+            int r = row + (2 * i + 1) * height / (2 * sampleRows);
+            for (int c = canvas.nextPainted(r, col, last); c <= last; c = canvas.nextPainted(r, c, last)) {
+                char colour = canvas.get(r, c);
+                int end = canvas.runEnd(r, c, last);
+                int k = 0;
+                while (k < colours && seen[k] != colour) {
+                    k++;
+                }
+                if (k == colours) {
+                    if (colours == seen.length) {
+                        c = end;
+                        continue;
+                    }
+                    seen[colours] = colour;
+                    weights[colours++] = 0;
+                }
+                weights[k] += end - c;
+                c = end;
+            }
+        }
+
+        char best = Canvas.BLANK;
+        long bestWeight = 0;
+        for (int k = 0; k < colours; k++) {
+            if (weights[k] > bestWeight) {
+                best = seen[k];
+                bestWeight = weights[k];
+            }
+        }
+        return best;
+    }
+}
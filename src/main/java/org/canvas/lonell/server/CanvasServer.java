@@ -0,0 +1,160 @@
+package org.canvas.lonell.server;
+
+import org.canvas.lonell.manager.SessionRegistry;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serves canvas sessions over TCP. One selector thread accepts clients, reads their command lines
+ * and writes their output, so an idle connection costs only its buffers and session. Commands run
+ * on a small worker pool, one at a time per connection and in the order they arrived. Every
+ * connection gets its own {@link org.canvas.lonell.manager.CanvasSession} speaking the console
+ * protocol; {@code Q} ends only that connection.
+ */
+public class CanvasServer implements Closeable {
+
+    private final InetSocketAddress address;
+    private final ExecutorService workers;
+    private final SessionRegistry registry = new SessionRegistry();
+    private final Queue<Connection> pending = new ConcurrentLinkedQueue<>();
+    private Selector selector;
+    private ServerSocketChannel server;
+    private Thread thread;
+    private volatile boolean closing;
+    private long connections;
+
+    public CanvasServer(InetSocketAddress address) {
+        this(address, Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors()));
+    }
+
+    public CanvasServer(InetSocketAddress address, ExecutorService workers) {
+        this.address = address;
+        this.workers = workers;
+    }
+
+    /**
+     * Binds the server socket. Must be called before {@link #run()} or {@link #start()}.
+     */
+    public void bind() throws IOException {
+        selector = Selector.open();
+        server = ServerSocketChannel.open();
+        server.bind(address);
+        server.configureBlocking(false);
+        server.register(selector, SelectionKey.OP_ACCEPT);
+    }
+
+    /**
+     * Binds and serves on a background thread.
+     */
+    public void start() throws IOException {
+        bind();
+        thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    CanvasServer.this.run();
+                } catch (IOException e) {
+                    throw new IllegalStateException("Canvas server stopped.", e);
+                }
+            }
+        }, "canvas-server");
+        thread.start();
+    }
+
+    public int getPort() {
+        return server.socket().getLocalPort();
+    }
+
+    public SessionRegistry getRegistry() {
+        return registry;
+    }
+
+    /**
+     * Serves connections on the calling thread until the server is closed.
+     */
+    public void run() throws IOException {
+        try {
+            while (!closing) {
+                selector.select();
+                Connection connection;
+                while ((connection = pending.poll()) != null) {
+                    connection.update();
+                }
+
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    if (key.isAcceptable()) {
+                        accept();
+                    } else {
+                        ((Connection) key.attachment()).ready(key);
+                    }
+                }
+            }
+        } finally {
+            for (SelectionKey key : selector.keys()) {
+                key.channel().close();
+            }
+            selector.close();
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel = server.accept();
+        if (channel == null) {
+            return;
+        }
+        channel.configureBlocking(false);
+        String id = "client-" + (++connections);
+        SelectionKey key = channel.register(selector, SelectionKey.OP_READ);
+        key.attach(new Connection(this, id, channel, key));
+    }
+
+    /**
+     * Asks the selector thread to refresh the interest set of {@code connection}.
+     */
+    void wakeup(Connection connection) {
+        pending.add(connection);
+        selector.wakeup();
+    }
+
+    ExecutorService getWorkers() {
+        return workers;
+    }
+
+    /**
+     * Stops serving: the selector thread closes every connection and the server socket on its way
+     * out.
+     */
+    @Override
+    public void close() throws IOException {
+        workers.shutdown();
+        closing = true;
+        if (selector != null) {
+            selector.wakeup();
+        }
+        if (thread != null) {
+            try {
+                thread.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,270 @@
+package org.canvas.lonell.server;
+
+import org.canvas.lonell.command.Command;
+import org.canvas.lonell.command.CommandParser;
+import org.canvas.lonell.manager.CanvasSession;
+import org.canvas.lonell.render.ByteSink;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * One client of a {@link CanvasServer}. The selector thread reads bytes into lines and writes
+ * queued output; a worker executes the queued lines against the connection's session. Each frame
+ * or message the session emits is copied once into a buffer of its own and sent with a gathering
+ * write. Once {@link #MAX_PENDING} bytes wait to be sent the connection is paused: the selector
+ * stops reading from it and its worker returns to the pool after the current command, leaving the
+ * remaining lines queued. They are scheduled again once the client has read enough for less than
+ * {@link #RESUME_PENDING} bytes to be waiting. A client that stops reading therefore never holds a
+ * worker, and costs at most the limit plus the output of one command.
+ */
+class Connection implements Runnable {
+
+    static final int MAX_LINE = 1 << 20;
+    static final long MAX_PENDING = 32L * 1024 * 1024;
+    static final long RESUME_PENDING = MAX_PENDING / 2;
+
+    private final CanvasServer server;
+    private final String id;
+    private final SocketChannel channel;
+    private final SelectionKey key;
+    private final CanvasSession session;
+    private final CommandParser parser = new CommandParser();
+    private final Command command = new Command();
+    private final ByteBuffer input = ByteBuffer.allocate(8192);
+    private byte[] line = new byte[256];
+    private int length;
+
+    private final Deque<byte[]> lines = new ArrayDeque<>();
+    private final Deque<ByteBuffer> output = new ArrayDeque<>();
+    private long pendingBytes;
+    private boolean running;
+    private boolean paused;
+    private boolean eof;
+    private boolean quit;
+    private boolean closed;
+
+    Connection(CanvasServer server, String id, SocketChannel channel, SelectionKey key) {
+        this.server = server;
+        this.id = id;
+        this.channel = channel;
+        this.key = key;
+        this.session = server.getRegistry().open(id, new ByteSink(new Outbox()));
+    }
+
+    /**
+     * Handles a selected key on the selector thread.
+     */
+    void ready(SelectionKey key) {
+        try {
+            if (key.isReadable()) {
+                read();
+            }
+            if (key.isValid() && key.isWritable()) {
+                flush();
+            }
+        } catch (IOException e) {
+            close();
+        }
+        update();
+    }
+
+    private void read() throws IOException {
+        input.clear();
+        int n = channel.read(input);
+        if (n < 0) {
+            if (length > 0) {
+                queueLine();
+            }
+            synchronized (this) {
+                eof = true;
+            }
+            schedule();
+            return;
+        }
+
+        byte[] bytes = input.array();
+        for (int i = 0; i < n; i++) {
+            byte b = bytes[i];
+            if (b == '\n') {
+                queueLine();
+            } else {
+                if (length == MAX_LINE) {
+                    throw new IOException("Line too long.");
+                }
+                if (length == line.length) {
+                    line = Arrays.copyOf(line, length * 2);
+                }
+                line[length++] = b;
+            }
+        }
+        schedule();
+    }
+
+    /**
+     * Queues the line read so far, without a trailing carriage return, and starts the next one.
+     */
+    private void queueLine() {
+        int end = length > 0 && line[length - 1] == '\r' ? length - 1 : length;
+        synchronized (this) {
+            if (!quit) {
+                lines.add(Arrays.copyOf(line, end));
+            }
+        }
+        length = 0;
+    }
+
+    private synchronized void schedule() {
+        if (running || paused || lines.isEmpty() || quit) {
+            return;
+        }
+        running = true;
+        try {
+            server.getWorkers().execute(this);
+        } catch (RejectedExecutionException e) {
+            running = false;
+            quit = true;
+        }
+    }
+
+    /**
+     * Executes queued lines on a worker thread until none are left or the connection is paused.
+     */
+    @Override
+    public void run() {
+        while (true) {
+            byte[] next;
+            synchronized (this) {
+                next = quit || paused ? null : lines.poll();
+                if (next == null) {
+                    running = false;
+                    break;
+                }
+            }
+            boolean failed = false;
+            try {
+                if (parser.parse(next, 0, next.length, command)) {
+                    session.execute(command);
+                }
+            } catch (RuntimeException e) {
+                failed = true;
+            }
+            if (failed || session.isClosed()) {
+                synchronized (this) {
+                    quit = true;
+                    lines.clear();
+                }
+            }
+        }
+        server.wakeup(this);
+    }
+
+    /**
+     * Refreshes the interest set on the selector thread, writing what it can straight away and
+     * closing the connection once it has nothing left to do.
+     */
+    void update() {
+        if (closed) {
+            return;
+        }
+        try {
+            flush();
+        } catch (IOException e) {
+            close();
+            return;
+        }
+
+        int ops;
+        synchronized (this) {
+            if ((quit || eof && lines.isEmpty()) && !running && output.isEmpty()) {
+                close();
+                return;
+            }
+            ops = output.isEmpty() ? 0 : SelectionKey.OP_WRITE;
+            if (!quit && !eof && !paused) {
+                ops |= SelectionKey.OP_READ;
+            }
+        }
+        if (key.isValid()) {
+            key.interestOps(ops);
+        }
+        schedule();
+    }
+
+    private synchronized void flush() throws IOException {
+        if (output.isEmpty()) {
+            return;
+        }
+        ByteBuffer[] buffers = output.toArray(new ByteBuffer[output.size()]);
+        pendingBytes -= channel.write(buffers);
+        while (!output.isEmpty() && !output.peek().hasRemaining()) {
+            output.poll();
+        }
+        if (paused && pendingBytes < RESUME_PENDING) {
+            paused = false;
+        }
+    }
+
+    void close() {
+        synchronized (this) {
+            closed = true;
+            quit = true;
+            lines.clear();
+            output.clear();
+        }
+        key.cancel();
+        try {
+            channel.close();
+        } catch (IOException e) {
+            // already gone
+        }
+        server.getRegistry().close(id);
+    }
+
+    /**
+     * Channel behind the session's sink: every write becomes one queued buffer.
+     */
+    private class Outbox implements WritableByteChannel {
+
+        /**
+         * Queues a copy of {@code src} and pauses the connection once {@link #MAX_PENDING} bytes
+         * or more are waiting. Never blocks.
+         */
+        @Override
+        public int write(ByteBuffer src) throws IOException {
+            int n = src.remaining();
+            synchronized (Connection.this) {
+                if (closed) {
+                    return n;
+                }
+                ByteBuffer copy = ByteBuffer.allocate(n);
+                copy.put(src).flip();
+                output.add(copy);
+                pendingBytes += n;
+                if (pendingBytes >= MAX_PENDING) {
+                    paused = true;
+                }
+            }
+            server.wakeup(Connection.this);
+            return n;
+        }
+
+        @Override
+        public boolean isOpen() {
+            synchronized (Connection.this) {
+                return !closed;
+            }
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,245 @@
+package org.canvas.lonell.snapshot;
+
+import org.canvas.lonell.entity.Canvas;
+import org.canvas.lonell.entity.CanvasStorage;
+import org.canvas.lonell.entity.StorageType;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * Binary canvas snapshots. A file is a 16-byte header (magic, version, inner width and height),
+ * every row run-length encoded as {@code (length, cell)} varint pairs, and a CRC32 of everything
+ * before it. Both directions stream through a fixed-size buffer: saving writes through the file
+ * channel and loading decodes from sliding memory-mapped windows straight into the new storage,
+ * so neither keeps a second copy of the canvas on the heap.
+ */
+public final class Snapshot {
+
+    public static final int MAGIC = 0x4c434e56;
+    public static final short VERSION = 1;
+
+    private static final int HEADER = 16;
+    private static final int CHECKSUM = 4;
+    private static final int BUFFER = 1 << 20;
+    private static final long WINDOW = 64L * 1024 * 1024;
+
+    private Snapshot() {
+    }
+
+    public static void save(Canvas canvas, Path file) throws IOException {
+        CanvasStorage storage = canvas.getStorage();
+        int width = storage.getWidth();
+        int height = storage.getHeight();
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            Output out = new Output(channel);
+            out.putInt(MAGIC);
+            out.putInt(VERSION << 16);
+            out.putInt(width);
+            out.putInt(height);
+
+            char[] row = new char[width];
+            for (int r = 0; r < height; r++) {
+                storage.copySpan(r, 0, width - 1, row, 0);
+                int start = 0;
+                while (start < width) {
+                    char c = row[start];
+                    int end = start + 1;
+                    while (end < width && row[end] == c) {
+                        end++;
+                    }
+                    out.putVarint(end - start);
+                    out.putVarint(c);
+                    start = end;
+                }
+            }
+            out.finish();
+        }
+    }
+
+    /**
+     * Reads a snapshot into new storage of the given type, or one chosen by size when {@code type}
+     * is {@code null}.
+     */
+    public static CanvasStorage load(Path file, StorageType type) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER + CHECKSUM) {
+                throw new IOException("Not a canvas snapshot.");
+            }
+
+            Input in = new Input(channel, size - CHECKSUM);
+            if (in.getInt() != MAGIC) {
+                throw new IOException("Not a canvas snapshot.");
+            }
+            int version = in.getInt() >>> 16;
+            if (version != VERSION) {
+                throw new IOException("Unsupported snapshot version " + version + ".");
+            }
+            int width = in.getInt();
+            int height = in.getInt();
+            if (width < 1 || height < 1 || width > Canvas.MAX_DIMENSION || height > Canvas.MAX_DIMENSION) {
+                throw new IOException("Invalid snapshot dimensions " + width + "x" + height + ".");
+            }
+            if (type == null) {
+                type = StorageType.forSize(width, height);
+            }
+            if ((long) width * height > type.getMaxCells()) {
+                throw new IOException("Canvas dimensions are too large for " + type.name().toLowerCase() + " storage.");
+            }
+
+            CanvasStorage storage = type.create(width, height);
+            for (int r = 0; r < height; r++) {
+                int col = 0;
+                while (col < width) {
+                    int length = in.getVarint();
+                    int c = in.getVarint();
+                    if (length < 1 || length > width - col || c > Character.MAX_VALUE) {
+                        throw new IOException("Corrupt snapshot at row " + (r + 1) + ".");
+                    }
+                    if (!Canvas.isBlank((char) c)) {
+                        storage.fillSpan(r, col, col + length - 1, (char) c);
+                    }
+                    col += length;
+                }
+            }
+
+            if (in.remaining() != 0 || in.checksum() != readChecksum(channel, size - CHECKSUM)) {
+                throw new IOException("Snapshot checksum mismatch.");
+            }
+            return storage;
+        }
+    }
+
+    private static int readChecksum(FileChannel channel, long position) throws IOException {
+        ByteBuffer trailer = ByteBuffer.allocate(CHECKSUM);
+        while (trailer.hasRemaining()) {
+            if (channel.read(trailer, position + trailer.position()) < 0) {
+                throw new IOException("Truncated snapshot.");
+            }
+        }
+        return trailer.getInt(0);
+    }
+
+    private static final class Output {
+        private final FileChannel channel;
+        private final byte[] bytes = new byte[BUFFER];
+        private final ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        private final CRC32 crc = new CRC32();
+        private int position;
+
+        Output(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        void putInt(int value) throws IOException {
+            ensure(4);
+            bytes[position++] = (byte) (value >>> 24);
+            bytes[position++] = (byte) (value >>> 16);
+            bytes[position++] = (byte) (value >>> 8);
+            bytes[position++] = (byte) value;
+        }
+
+        void putVarint(int value) throws IOException {
+            ensure(5);
+            while ((value & ~0x7f) != 0) {
+                bytes[position++] = (byte) ((value & 0x7f) | 0x80);
+                value >>>= 7;
+            }
+            bytes[position++] = (byte) value;
+        }
+
+        void finish() throws IOException {
+            flush();
+            putInt((int) crc.getValue());
+            buffer.clear().limit(position);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+
+        private void ensure(int length) throws IOException {
+            if (position + length > bytes.length) {
+                flush();
+            }
+        }
+
+        private void flush() throws IOException {
+            crc.update(bytes, 0, position);
+            buffer.clear().limit(position);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            position = 0;
+        }
+    }
+
+    private static final class Input {
+        private final FileChannel channel;
+        private final long end;
+        private final byte[] bytes = new byte[64 * 1024];
+        private final CRC32 crc = new CRC32();
+        private MappedByteBuffer window;
+        private long windowEnd;
+        private int position;
+        private int limit;
+
+        Input(FileChannel channel, long end) {
+            this.channel = channel;
+            this.end = end;
+        }
+
+        int getInt() throws IOException {
+            return (next() << 24) | (next() << 16) | (next() << 8) | next();
+        }
+
+        int getVarint() throws IOException {
+            int value = 0;
+            for (int shift = 0; shift < 32; shift += 7) {
+                int b = next();
+                value |= (b & 0x7f) << shift;
+                if (b < 0x80) {
+                    return value;
+                }
+            }
+            throw new IOException("Corrupt snapshot.");
+        }
+
+        long remaining() {
+            return end - windowEnd + (window == null ? 0 : window.remaining()) + limit - position;
+        }
+
+        int checksum() {
+            return (int) crc.getValue();
+        }
+
+        private int next() throws IOException {
+            if (position == limit) {
+                refill();
+            }
+            return bytes[position++] & 0xff;
+        }
+
+        private void refill() throws IOException {
+            if (window == null || !window.hasRemaining()) {
+                if (windowEnd >= end) {
+                    throw new IOException("Truncated snapshot.");
+                }
+                long length = Math.min(WINDOW, end - windowEnd);
+                window = channel.map(FileChannel.MapMode.READ_ONLY, windowEnd, length);
+                windowEnd += length;
+            }
+            limit = Math.min(bytes.length, window.remaining());
+            window.get(bytes, 0, limit);
+            crc.update(bytes, 0, limit);
+            position = 0;
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package org.canvas.lonell.utilities;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Reads a UTF-8 text file line by line through a sliding memory-mapped window, so arbitrarily large
+ * command files are streamed without going through a {@code Scanner} or a per-byte stream call.
+ */
+public class MappedLineReader implements Closeable {
+
+    private static final long WINDOW = 64L * 1024 * 1024;
+
+    private final FileChannel channel;
+    private final long size;
+    private MappedByteBuffer window;
+    private long windowStart;
+    private byte[] line = new byte[256];
+    private int length;
+
+    public MappedLineReader(Path file) throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.READ);
+        size = channel.size();
+    }
+
+    /**
+     * Advances to the next line, without its terminator. Returns {@code false} at end of file.
+     */
+    public boolean next() throws IOException {
+        length = 0;
+        boolean read = false;
+
+        while (true) {
+            if (window == null || !window.hasRemaining()) {
+                long position = window == null ? 0 : windowStart + window.limit();
+                if (position >= size) {
+                    return read;
+                }
+                windowStart = position;
+                window = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(WINDOW, size - position));
+            }
+
+            read = true;
+            while (window.hasRemaining()) {
+                byte b = window.get();
+                if (b == '\n') {
+                    if (length > 0 && line[length - 1] == '\r') {
+                        length--;
+                    }
+                    return true;
+                }
+                if (length == line.length) {
+                    line = Arrays.copyOf(line, length * 2);
+                }
+                line[length++] = b;
+            }
+        }
+    }
+
+    public byte[] bytes() {
+        return line;
+    }
+
+    public int length() {
+        return length;
+    }
+
+    public String line() {
+        return new String(line, 0, length, StandardCharsets.UTF_8);
+    }
+
+    public long size() {
+        return size;
+    }
+
+    @Override
+    public void close() throws IOException {
+        window = null;
+        channel.close();
+    }
+}
@@ -0,0 +1,65 @@
+package org.canvas.lonell.utilities;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Shared worker pool for splitting work on large canvases across cores, plus the bulk helpers that
+ * use it. Work below {@link #PARALLEL_THRESHOLD} elements always stays on the calling thread.
+ */
+public class Workers {
+
+    public static final int PARALLEL_THRESHOLD = 1 << 20;
+
+    private static volatile ForkJoinPool pool;
+
+    public static ForkJoinPool pool() {
+        if (pool == null) {
+            synchronized (Workers.class) {
+                if (pool == null) {
+                    pool = new ForkJoinPool();
+                }
+            }
+        }
+        return pool;
+    }
+
+    /**
+     * Equivalent to {@link Arrays#fill(char[], char)}, split into chunks on the pool for large
+     * arrays.
+     */
+    public static void fill(char[] array, char c) {
+        if (array.length < PARALLEL_THRESHOLD) {
+            Arrays.fill(array, c);
+            return;
+        }
+        pool().invoke(new FillAction(array, 0, array.length, c));
+    }
+
+    private static final class FillAction extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final char[] array;
+        private final int from;
+        private final int to;
+        private final char c;
+
+        FillAction(char[] array, int from, int to, char c) {
+            this.array = array;
+            this.from = from;
+            this.to = to;
+            this.c = c;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= PARALLEL_THRESHOLD / 4) {
+                Arrays.fill(array, from, to, c);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new FillAction(array, from, middle, c), new FillAction(array, middle, to, c));
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package org.canvas.lonell.command;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class CommandParserTest {
+
+    private final CommandParser parser = new CommandParser();
+    private final Command command = new Command();
+
+    @Test
+    public void testParsesOpcodeAndArguments() throws Exception {
+        assertTrue(parser.parse("  L 1 22 +3 -4 ", command));
+
+        assertEquals('L', command.getOpcode());
+        assertEquals(4, command.size());
+        assertEquals(1, command.get(0));
+        assertEquals(22, command.get(1));
+        assertEquals(3, command.get(2));
+        assertEquals(-4, command.get(3));
+        assertFalse(command.isNumericAndPositive(0, 3));
+        assertTrue(command.isNumericAndPositive(0, 2));
+    }
+
+    @Test
+    public void testFlagsNonNumericTokensWithoutThrowing() throws Exception {
+        assertTrue(parser.parse("B wq 2147483648 o", command));
+
+        assertFalse(command.isNumeric(0));
+        assertFalse(command.isNumeric(1));
+        assertFalse(command.isNumeric(2));
+        assertEquals('o', command.charAt(2));
+    }
+
+    @Test
+    public void testKeepsArgumentText() throws Exception {
+        assertTrue(parser.parse("S  my file.snap ", command));
+        assertEquals(" my file.snap", command.getText(0));
+        assertEquals("file.snap", command.getText(2));
+
+        assertTrue(parser.parse("O", new String[]{"a b", "c"}, command));
+        assertEquals("a b c", command.getText(0));
+    }
+
+    @Test
+    public void testDoubleSpaceProducesEmptyArgument() throws Exception {
+        assertTrue(parser.parse("C 1  1", command));
+
+        assertEquals(3, command.size());
+        assertFalse(command.isNumeric(1));
+    }
+
+    @Test
+    public void testMultiCharacterOpcodeIsInvalid() throws Exception {
+        assertTrue(parser.parse("CC 1 1", command));
+        assertEquals(Command.INVALID, command.getOpcode());
+    }
+
+    @Test
+    public void testBlankLineIsNotACommand() throws Exception {
+        assertFalse(parser.parse(" \t ", command));
+    }
+
+    @Test
+    public void testParsesUtf8Bytes() throws Exception {
+        byte[] bytes = "B 3 4 é\r".getBytes(StandardCharsets.UTF_8);
+        assertTrue(parser.parse(bytes, 0, bytes.length, command));
+
+        assertEquals('B', command.getOpcode());
+        assertEquals(3, command.get(0));
+        assertEquals(4, command.get(1));
+        assertEquals('é', command.charAt(2));
+    }
+
+    @Test
+    public void testDecodesFourByteUtf8AsSurrogatePair() throws Exception {
+        byte[] bytes = "B 3 4 \uD83D\uDE00 é".getBytes(StandardCharsets.UTF_8);
+        assertTrue(parser.parse(bytes, 0, bytes.length, command));
+
+        assertEquals(4, command.size());
+        assertEquals('\uD83D', command.charAt(2));
+        assertEquals("\uD83D\uDE00 é", command.getText(2));
+        assertEquals('é', command.charAt(3));
+    }
+}
@@ -0,0 +1,132 @@
+package org.canvas.lonell.entity;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class CanvasTest {
+
+    @Test
+    public void testCompatibilityViewIncludesBorders() throws Exception {
+        Canvas canvas = new Canvas(3, 1);
+        canvas.set(1, 2, 'x');
+
+        assertArrayEquals(new char[][]{
+            "-----".toCharArray(),
+            "| x |".toCharArray(),
+            "-----".toCharArray()}, canvas.getCanvas());
+    }
+
+    @Test
+    public void testPaintRowSkipsPaintedCells() throws Exception {
+        Canvas canvas = new Canvas(5, 1);
+        canvas.set(1, 3, 'o');
+        canvas.paintRow(1, 1, 5, 'x');
+
+        assertEquals("xxoxx", rows(canvas));
+    }
+
+    @Test
+    public void testPaintColumnSkipsPaintedCells() throws Exception {
+        Canvas canvas = new Canvas(2, 3);
+        canvas.set(2, 2, 'o');
+        canvas.paintColumn(2, 1, 3, 'x');
+
+        assertEquals(" x o x", rows(canvas));
+    }
+
+    @Test
+    public void testPaintLineCoversEveryStepOnce() throws Exception {
+        RunLengthStorage storage = new RunLengthStorage(1000, 7);
+        Canvas canvas = new Canvas(storage);
+        canvas.paintLine(1000, 1, 1, 7, 'x');
+
+        int painted = 0;
+        for (int row = 1; row <= 7; row++) {
+            assertTrue(storage.getRuns(row - 1) <= 3);
+            painted += canvas.runEnd(row, canvas.nextPainted(row, 1, 1000), 1000) - canvas.nextPainted(row, 1, 1000);
+        }
+        assertEquals(1000, painted);
+        assertEquals('x', canvas.get(1, 1000));
+        assertEquals('x', canvas.get(7, 1));
+
+        Canvas steep = new Canvas(7, 1000);
+        steep.paintLine(1, 1, 7, 1000, 'x');
+        for (int row = 1; row <= 1000; row++) {
+            int col = steep.nextPainted(row, 1, 7);
+            assertTrue(col <= 7);
+            assertEquals(8, steep.nextPainted(row, col + 1, 7));
+        }
+    }
+
+    @Test
+    public void testCopyBlockHandlesOverlap() throws Exception {
+        Random random = new Random(3);
+        for (StorageType type : StorageType.values()) {
+            Canvas canvas = new Canvas(150, 90, type);
+            for (int i = 0; i < 40; i++) {
+                canvas.fillBlock(1 + random.nextInt(150), 1 + random.nextInt(90), 150, 90, (char) ('a' + i % 26));
+            }
+            for (int i = 0; i < 20; i++) {
+                int left = 1 + random.nextInt(100);
+                int top = 1 + random.nextInt(60);
+                int right = left + random.nextInt(50);
+                int bottom = top + random.nextInt(30);
+                int toLeft = Math.max(1, left + random.nextInt(21) - 10);
+                int toTop = Math.max(1, top + random.nextInt(21) - 10);
+                toLeft = Math.min(toLeft, 150 - (right - left));
+                toTop = Math.min(toTop, 90 - (bottom - top));
+
+                char[][] expected = canvas.toArray();
+                char[][] before = canvas.toArray();
+                for (int row = top; row <= bottom; row++) {
+                    System.arraycopy(before[row], left, expected[row + toTop - top], toLeft, right - left + 1);
+                }
+                canvas.copyBlock(left, top, right, bottom, toLeft, toTop);
+                assertArrayEquals(type.name(), expected, canvas.toArray());
+            }
+        }
+    }
+
+    @Test
+    public void testTiledStorageMatchesFlatStorage() throws Exception {
+        Canvas flat = new Canvas(150, 70, StorageType.FLAT);
+        Canvas tiled = new Canvas(150, 70, StorageType.TILED);
+        for (Canvas canvas : new Canvas[]{flat, tiled}) {
+            canvas.paintRow(3, 10, 140, 'x');
+            canvas.paintColumn(65, 1, 70, 'x');
+            canvas.fillRow(66, 1, 150, 'o');
+            canvas.set(70, 150, 'z');
+        }
+
+        assertEquals(rows(flat), rows(tiled));
+        assertEquals(65, tiled.nextPainted(5, 1, 150));
+        assertEquals(65, tiled.prevPainted(70, 1, 149));
+        assertEquals(141, tiled.nextBlank(3, 65, 150));
+    }
+
+    @Test
+    public void testTiledStorageAllocatesOnlyWrittenTiles() throws Exception {
+        Canvas canvas = new Canvas(100000, 100000, StorageType.TILED);
+        TiledStorage storage = (TiledStorage) canvas.getStorage();
+        canvas.paintRow(5, 1, 200, 'x');
+
+        assertEquals(' ', canvas.get(99999, 99999));
+        assertEquals(4, storage.getAllocatedTiles());
+        assertEquals(100001, canvas.nextPainted(5, 201, 100000));
+    }
+
+    private String rows(Canvas canvas) {
+        char[] row = new char[canvas.getInnerWidth()];
+        StringBuilder builder = new StringBuilder();
+        for (int i = 1; i <= canvas.getInnerHeight(); i++) {
+            canvas.copyRow(i, row, 0);
+            builder.append(row);
+        }
+        return builder.toString();
+    }
+}
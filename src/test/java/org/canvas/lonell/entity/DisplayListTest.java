@@ -0,0 +1,141 @@
+package org.canvas.lonell.entity;
+
+import org.canvas.lonell.fill.PointQueue;
+import org.canvas.lonell.fill.ScanlineFillEngine;
+import org.canvas.lonell.manager.CanvasSession;
+import org.canvas.lonell.render.ByteSink;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class DisplayListTest {
+
+    @Test
+    public void testMatchesImmediateDrawing() throws Exception {
+        Random random = new Random(7);
+        Canvas immediate = new Canvas(300, 200, StorageType.FLAT);
+        DisplayList list = new DisplayList(StorageType.FLAT.create(300, 200));
+        Canvas retained = new Canvas(list);
+
+        for (int i = 0; i < 200; i++) {
+            int x1 = 1 + random.nextInt(300);
+            int y1 = 1 + random.nextInt(200);
+            int x2 = 1 + random.nextInt(300);
+            int y2 = 1 + random.nextInt(200);
+            char c = i % 2 == 0 ? 'x' : 'o';
+            switch (random.nextInt(4)) {
+                case 0:
+                    immediate.paintRow(y1, Math.min(x1, x2), Math.max(x1, x2), c);
+                    list.add(new Shape(Shape.Kind.LINE, y1 - 1, x1 - 1, y1 - 1, x2 - 1, c), null);
+                    break;
+                case 1:
+                    immediate.paintColumn(x1, Math.min(y1, y2), Math.max(y1, y2), c);
+                    list.add(new Shape(Shape.Kind.LINE, y1 - 1, x1 - 1, y2 - 1, x1 - 1, c), null);
+                    break;
+                case 2:
+                    immediate.paintLine(x1, y1, x2, y2, c);
+                    list.add(new Shape(Shape.Kind.LINE, y1 - 1, x1 - 1, y2 - 1, x2 - 1, c), null);
+                    break;
+                default:
+                    int top = Math.min(y1, y2);
+                    int bottom = Math.max(y1, y2);
+                    int left = Math.min(x1, x2);
+                    int right = Math.max(x1, x2);
+                    immediate.paintColumn(left, top, bottom, c);
+                    immediate.paintRow(top, left, right, c);
+                    immediate.paintColumn(right, top, bottom, c);
+                    immediate.paintRow(bottom, left, right, c);
+                    list.add(new Shape(Shape.Kind.RECTANGLE, top - 1, left - 1, bottom - 1, right - 1, c), null);
+                    break;
+            }
+            if (i % 50 == 49) {
+                int x = 1 + random.nextInt(300);
+                int y = 1 + random.nextInt(200);
+                new ScanlineFillEngine(new PointQueue()).fill(immediate, y, x, 'é');
+                new ScanlineFillEngine(new PointQueue()).fill(retained, y, x, 'é');
+            }
+        }
+
+        assertArrayEquals(immediate.toArray(), retained.toArray());
+        assertEquals(0, list.getPendingCells());
+    }
+
+    @Test
+    public void testPaintsOnlyCellsThatAreRead() throws Exception {
+        FlatStorage storage = new FlatStorage(1000, 1000);
+        DisplayList list = new DisplayList(storage);
+        list.add(new Shape(Shape.Kind.RECTANGLE, 0, 0, 999, 999, 'x'), null);
+        list.add(new Shape(Shape.Kind.LINE, 500, 0, 500, 999, 'x'), null);
+        int pending = list.getPendingCells();
+        assertTrue(pending > 0);
+        assertEquals(' ', storage.get(0, 0));
+
+        assertEquals('x', list.get(500, 10));
+        assertEquals(pending - 1, list.getPendingCells());
+        assertEquals('x', storage.get(500, 63));
+        assertEquals(' ', storage.get(500, 64));
+        assertEquals(' ', storage.get(0, 0));
+
+        assertEquals(' ', list.get(100, 100));
+        assertEquals(pending - 1, list.getPendingCells());
+    }
+
+    @Test
+    public void testQueryAndHitTest() throws Exception {
+        DisplayList list = new DisplayList(new FlatStorage(500, 500));
+        Shape rectangle = new Shape(Shape.Kind.RECTANGLE, 10, 10, 400, 400, 'x');
+        Shape line = new Shape(Shape.Kind.LINE, 200, 0, 200, 499, 'o');
+        list.add(rectangle, null);
+        list.add(line, null);
+
+        List<Shape> found = list.query(0, 0, 499, 499);
+        assertEquals(2, found.size());
+        assertSame(rectangle, found.get(0));
+        assertSame(line, found.get(1));
+        assertEquals(1, list.query(5, 5, 20, 20).size());
+        assertTrue(list.query(100, 100, 150, 150).isEmpty());
+
+        assertSame(line, list.hitTest(200, 10));
+        assertSame(rectangle, list.hitTest(300, 10));
+        assertNull(list.hitTest(300, 300));
+        assertEquals(2, list.getShapes());
+    }
+
+    @Test
+    public void testUndoRedoRetainedShapes() throws Exception {
+        CanvasSession session = new CanvasSession(new ByteSink(new ByteArrayOutputStream()));
+        session.setRetained(true);
+        session.setAutoRender(false);
+        session.execute("C 200 100");
+        char[][] blank = session.getCanvas().toArray();
+
+        session.execute("R 10 10 150 80");
+        session.execute("L 1 50 200 50");
+        char[][] drawn = session.getCanvas().toArray();
+        session.execute("B 20 20 o");
+        char[][] filled = session.getCanvas().toArray();
+        session.execute("P 5 1 100 90 190 2 5 1");
+
+        session.execute("U");
+        assertArrayEquals(filled, session.getCanvas().toArray());
+        session.execute("U");
+        assertArrayEquals(drawn, session.getCanvas().toArray());
+        session.execute("U");
+        session.execute("U");
+        assertArrayEquals(blank, session.getCanvas().toArray());
+
+        session.execute("Y");
+        session.execute("Y");
+        assertArrayEquals(drawn, session.getCanvas().toArray());
+        session.execute("Y");
+        assertArrayEquals(filled, session.getCanvas().toArray());
+    }
+}
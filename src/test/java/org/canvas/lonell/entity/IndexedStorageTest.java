@@ -0,0 +1,96 @@
+package org.canvas.lonell.entity;
+
+import org.canvas.lonell.fill.ParallelFillEngine;
+import org.canvas.lonell.fill.PointQueue;
+import org.canvas.lonell.fill.ScanlineFillEngine;
+import org.junit.Test;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class IndexedStorageTest {
+
+    @Test
+    public void testMatchesFlatStorageWhileWidening() throws Exception {
+        Random random = new Random(11);
+        int width = 41;
+        int height = 6;
+        CanvasStorage expected = new FlatStorage(width, height);
+        IndexedStorage actual = new IndexedStorage(width, height, 4);
+
+        for (int i = 0; i < 20000; i++) {
+            int row = random.nextInt(height);
+            int a = random.nextInt(width);
+            int b = random.nextInt(width);
+            int from = Math.min(a, b);
+            int to = Math.max(a, b);
+            int colours = i < 5000 ? 8 : i < 10000 ? 100 : 400;
+            char c = random.nextInt(4) == 0 ? ' ' : (char) ('!' + random.nextInt(colours));
+
+            switch (random.nextInt(5)) {
+                case 0:
+                    expected.fillSpan(row, from, to, c);
+                    actual.fillSpan(row, from, to, c);
+                    break;
+                case 1:
+                    c = c == ' ' ? 'x' : c;
+                    assertEquals(expected.paintSpan(row, from, to, c), actual.paintSpan(row, from, to, c));
+                    break;
+                case 2:
+                    expected.set(row, from, c);
+                    actual.set(row, from, c);
+                    break;
+                case 3:
+                    char[] cells = new char[to - from + 1];
+                    expected.copySpan((row + 1) % height, from, to, cells, 0);
+                    expected.writeSpan(row, from, to, cells, 0);
+                    actual.writeSpan(row, from, to, cells, 0);
+                    break;
+                default:
+                    assertEquals(expected.nextBlank(row, from, to), actual.nextBlank(row, from, to));
+                    assertEquals(expected.nextPainted(row, from, to), actual.nextPainted(row, from, to));
+                    assertEquals(expected.prevPainted(row, from, to), actual.prevPainted(row, from, to));
+                    assertEquals(expected.runEnd(row, from, to), actual.runEnd(row, from, to));
+                    break;
+            }
+
+            char[] expectedRow = new char[width];
+            char[] actualRow = new char[width];
+            expected.copySpan(row, 0, width - 1, expectedRow, 0);
+            actual.copySpan(row, 0, width - 1, actualRow, 0);
+            assertArrayEquals(expectedRow, actualRow);
+            if (i == 4999) {
+                assertEquals(4, actual.getBits());
+            }
+        }
+        assertEquals(16, actual.getBits());
+    }
+
+    @Test
+    public void testUsesFractionOfFlatMemory() throws Exception {
+        assertEquals(1000L * 1000, new IndexedStorage(1000, 1000, 8).memoryBytes());
+        assertEquals(500L * 1000, new IndexedStorage(999, 1000, 4).memoryBytes());
+        assertEquals(2L * 1000 * 1000, new FlatStorage(1000, 1000).memoryBytes());
+    }
+
+    @Test
+    public void testParallelFillOnPackedRows() throws Exception {
+        Canvas flat = new Canvas(1001, 1001, StorageType.FLAT);
+        Canvas packed = new Canvas(1001, 1001, StorageType.PACKED);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        for (Canvas canvas : new Canvas[]{flat, packed}) {
+            canvas.paintLine(1, 1, 1001, 1001, 'x');
+            canvas.paintLine(1001, 1, 1, 1001, 'o');
+            canvas.paintLine(500, 1, 500, 1001, 'x');
+            new ParallelFillEngine(pool, null, 0).fill(canvas, 10, 500, '#');
+            new ScanlineFillEngine(new PointQueue()).fill(canvas, 900, 2, '.');
+        }
+        pool.shutdown();
+
+        assertArrayEquals(flat.getCanvas(), packed.getCanvas());
+        assertEquals(4, ((IndexedStorage) packed.getStorage()).getBits());
+    }
+}
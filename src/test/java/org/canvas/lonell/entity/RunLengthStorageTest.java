@@ -0,0 +1,110 @@
+package org.canvas.lonell.entity;
+
+import org.canvas.lonell.fill.PointQueue;
+import org.canvas.lonell.fill.ScanlineFillEngine;
+import org.canvas.lonell.render.ByteSink;
+import org.canvas.lonell.render.FrameRenderer;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class RunLengthStorageTest {
+
+    @Test
+    public void testMatchesFlatStorage() throws Exception {
+        Random random = new Random(42);
+        int width = 37;
+        int height = 5;
+        CanvasStorage expected = new FlatStorage(width, height);
+        CanvasStorage actual = new RunLengthStorage(width, height);
+        char[] colours = {' ', 'x', 'o', 'é'};
+
+        for (int i = 0; i < 5000; i++) {
+            int row = random.nextInt(height);
+            int a = random.nextInt(width);
+            int b = random.nextInt(width);
+            int from = Math.min(a, b);
+            int to = Math.max(a, b);
+            char c = colours[random.nextInt(colours.length)];
+
+            switch (random.nextInt(5)) {
+                case 0:
+                    expected.fillSpan(row, from, to, c);
+                    actual.fillSpan(row, from, to, c);
+                    break;
+                case 1:
+                    c = c == ' ' ? 'x' : c;
+                    assertEquals(expected.paintSpan(row, from, to, c), actual.paintSpan(row, from, to, c));
+                    break;
+                case 2:
+                    expected.set(row, from, c);
+                    actual.set(row, from, c);
+                    break;
+                case 3:
+                    char[] cells = new char[to - from + 1];
+                    for (int j = 0; j < cells.length; j++) {
+                        cells[j] = colours[random.nextInt(2) == 0 ? 0 : random.nextInt(colours.length)];
+                    }
+                    expected.writeSpan(row, from, to, cells, 0);
+                    actual.writeSpan(row, from, to, cells, 0);
+                    break;
+                default:
+                    assertEquals(expected.nextBlank(row, from, to), actual.nextBlank(row, from, to));
+                    assertEquals(expected.nextPainted(row, from, to), actual.nextPainted(row, from, to));
+                    assertEquals(expected.prevPainted(row, from, to), actual.prevPainted(row, from, to));
+                    assertEquals(expected.runEnd(row, from, to), actual.runEnd(row, from, to));
+                    break;
+            }
+
+            char[] expectedRow = new char[width];
+            char[] actualRow = new char[width];
+            expected.copySpan(row, 0, width - 1, expectedRow, 0);
+            actual.copySpan(row, 0, width - 1, actualRow, 0);
+            assertArrayEquals(expectedRow, actualRow);
+        }
+    }
+
+    @Test
+    public void testRunsFollowEditsNotWidth() throws Exception {
+        RunLengthStorage storage = new RunLengthStorage(Canvas.MAX_DIMENSION, 3);
+
+        storage.fillSpan(1, 0, Canvas.MAX_DIMENSION - 1, 'x');
+        storage.set(1, 500, ' ');
+        assertEquals(3, storage.getRuns(1));
+        storage.set(1, 500, 'x');
+        assertEquals(1, storage.getRuns(1));
+
+        storage.fillSpan(1, 0, Canvas.MAX_DIMENSION - 1, ' ');
+        assertEquals(1, storage.getRuns(1));
+        assertTrue(storage.memoryBytes() < 100);
+        assertFalse(storage.paintSpan(0, 0, 10, ' '));
+    }
+
+    @Test
+    public void testFillAndRenderMatchFlatStorage() throws Exception {
+        Canvas flat = new Canvas(30, 8, StorageType.FLAT);
+        Canvas rle = new Canvas(30, 8, StorageType.RLE);
+        for (Canvas canvas : new Canvas[]{flat, rle}) {
+            canvas.paintRow(3, 1, 20, 'x');
+            canvas.paintColumn(20, 1, 8, 'x');
+            canvas.paintColumn(5, 3, 8, 'x');
+            new ScanlineFillEngine(new PointQueue()).fill(canvas, 1, 1, 'o');
+            new ScanlineFillEngine(new PointQueue()).fill(canvas, 5, 10, 'é');
+        }
+
+        assertArrayEquals(flat.getCanvas(), rle.getCanvas());
+        assertEquals(render(flat), render(rle));
+    }
+
+    private String render(Canvas canvas) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new FrameRenderer(new ByteSink(out)).render(canvas);
+        return out.toString("UTF-8");
+    }
+}
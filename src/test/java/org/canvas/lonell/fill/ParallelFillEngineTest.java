@@ -0,0 +1,74 @@
+package org.canvas.lonell.fill;
+
+import org.canvas.lonell.entity.Canvas;
+import org.canvas.lonell.entity.StorageType;
+import org.junit.AfterClass;
+import org.junit.Test;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.assertArrayEquals;
+
+public class ParallelFillEngineTest {
+
+    private static final ForkJoinPool pool = new ForkJoinPool(4);
+
+    @AfterClass
+    public static void shutdown() {
+        pool.shutdown();
+    }
+
+    @Test
+    public void testMatchesScanlineFill() throws Exception {
+        Random random = new Random(11);
+        for (int round = 0; round < 20; round++) {
+            int width = 1 + random.nextInt(300);
+            int height = 1 + random.nextInt(400);
+            StorageType type = round % 2 == 0 ? StorageType.FLAT : StorageType.TILED;
+            Canvas expected = maze(width, height, StorageType.FLAT, new Random(round));
+            Canvas actual = maze(width, height, type, new Random(round));
+            int row = 1 + random.nextInt(height);
+            int col = 1 + random.nextInt(width);
+
+            new ScanlineFillEngine().fill(expected, row, col, 'o');
+            new ParallelFillEngine(pool, new ScanlineFillEngine(), 0).fill(actual, row, col, 'o');
+
+            assertArrayEquals(expected.toArray(), actual.toArray());
+        }
+    }
+
+    @Test
+    public void testFillsComponentSpanningStripes() throws Exception {
+        Canvas expected = new Canvas(50, 500, StorageType.FLAT);
+        Canvas actual = new Canvas(50, 500, StorageType.FLAT);
+        for (Canvas canvas : new Canvas[]{expected, actual}) {
+            for (int row = 2; row < 500; row += 2) {
+                int gap = (row / 2) % 2 == 0 ? 1 : 50;
+                canvas.paintRow(row, 1, 50, 'x');
+                canvas.set(row, gap, ' ');
+            }
+        }
+
+        new ScanlineFillEngine().fill(expected, 1, 25, 'o');
+        new ParallelFillEngine(pool, new ScanlineFillEngine(), 0).fill(actual, 1, 25, 'o');
+
+        assertArrayEquals(expected.toArray(), actual.toArray());
+    }
+
+    private Canvas maze(int width, int height, StorageType type, Random random) {
+        Canvas canvas = new Canvas(width, height, type);
+        for (int i = 0; i < (width + height) / 3; i++) {
+            if (random.nextBoolean()) {
+                int row = 1 + random.nextInt(height);
+                int from = 1 + random.nextInt(width);
+                canvas.paintRow(row, from, Math.min(width, from + random.nextInt(width)), 'x');
+            } else {
+                int col = 1 + random.nextInt(width);
+                int from = 1 + random.nextInt(height);
+                canvas.paintColumn(col, from, Math.min(height, from + random.nextInt(height)), 'x');
+            }
+        }
+        return canvas;
+    }
+}
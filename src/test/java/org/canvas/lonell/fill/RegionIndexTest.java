@@ -0,0 +1,177 @@
+package org.canvas.lonell.fill;
+
+import org.canvas.lonell.entity.Canvas;
+import org.canvas.lonell.entity.StorageType;
+import org.canvas.lonell.manager.CanvasSession;
+import org.canvas.lonell.render.ByteSink;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayDeque;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class RegionIndexTest {
+
+    @Test
+    public void testRefillRecoloursWithoutSearching() throws Exception {
+        RegionIndex index = new RegionIndex(StorageType.FLAT.create(20, 10));
+        Canvas canvas = new Canvas(index);
+        canvas.paintColumn(8, 1, 10, 'x');
+
+        RegionIndex.Region left = index.recolour(canvas, 5, 3, 'o');
+        assertEquals(70, left.getArea());
+        assertEquals(1, left.getLeft());
+        assertEquals(7, left.getRight());
+        assertEquals(10, left.getBottom());
+
+        assertSame(left, index.recolour(canvas, 2, 2, 'a'));
+        assertSame(left, index.recolour(canvas, 9, 7, 'b'));
+        assertEquals(1, index.getLabellings());
+        assertEquals('b', canvas.get(1, 1));
+        assertEquals('x', canvas.get(1, 8));
+        assertEquals(' ', canvas.get(1, 9));
+
+        RegionIndex.Region wall = index.recolour(canvas, 3, 8, 'y');
+        assertEquals(10, wall.getArea());
+        assertEquals('y', canvas.get(10, 8));
+        assertTrue(left.isCurrent());
+    }
+
+    @Test
+    public void testLineSplitsOnlyTheRegionsItCrosses() throws Exception {
+        RegionIndex index = new RegionIndex(StorageType.RLE.create(30, 10));
+        Canvas canvas = new Canvas(index);
+        canvas.paintColumn(10, 1, 10, 'x');
+        RegionIndex.Region left = index.recolour(canvas, 1, 1, 'o');
+        RegionIndex.Region right = index.regionAt(canvas, 1, 20);
+        assertEquals(200, right.getArea());
+
+        canvas.paintRow(5, 11, 30, 'x');
+        assertTrue(left.isCurrent());
+        assertFalse(right.isCurrent());
+
+        RegionIndex.Region top = index.regionAt(canvas, 1, 20);
+        assertEquals(80, top.getArea());
+        assertEquals(4, top.getBottom());
+        assertEquals(100, index.regionAt(canvas, 6, 20).getArea());
+        assertSame(left, index.regionAt(canvas, 10, 9));
+    }
+
+    @Test
+    public void testRecolourMergesWithNeighbour() throws Exception {
+        RegionIndex index = new RegionIndex(StorageType.FLAT.create(10, 3));
+        Canvas canvas = new Canvas(index);
+        canvas.paintColumn(5, 1, 3, 'x');
+        index.recolour(canvas, 1, 1, 'o');
+        index.recolour(canvas, 1, 10, 'o');
+
+        RegionIndex.Region wall = index.recolour(canvas, 2, 5, 'o');
+        assertFalse(wall.isCurrent());
+        RegionIndex.Region all = index.regionAt(canvas, 3, 3);
+        assertEquals(30, all.getArea());
+        assertEquals(1, index.getRegions());
+    }
+
+    @Test
+    public void testMatchesReferenceOnRandomEdits() throws Exception {
+        Random random = new Random(11);
+        for (StorageType type : new StorageType[] {StorageType.FLAT, StorageType.TILED, StorageType.RLE}) {
+            RegionIndex index = new RegionIndex(type.create(60, 40));
+            Canvas actual = new Canvas(index);
+            Canvas expected = new Canvas(60, 40, StorageType.FLAT);
+            char[] colours = {'x', 'o', 'a'};
+
+            for (int i = 0; i < 400; i++) {
+                int x1 = 1 + random.nextInt(60);
+                int y1 = 1 + random.nextInt(40);
+                int x2 = 1 + random.nextInt(60);
+                int y2 = 1 + random.nextInt(40);
+                char c = colours[random.nextInt(colours.length)];
+                switch (random.nextInt(3)) {
+                    case 0:
+                        actual.paintLine(x1, y1, x2, y2, c);
+                        expected.paintLine(x1, y1, x2, y2, c);
+                        break;
+                    case 1:
+                        actual.fillBlock(Math.min(x1, x2), Math.min(y1, y2), Math.max(x1, x2), Math.max(y1, y2), c);
+                        expected.fillBlock(Math.min(x1, x2), Math.min(y1, y2), Math.max(x1, x2), Math.max(y1, y2), c);
+                        break;
+                    default:
+                        RegionIndex.Region region = index.recolour(actual, y1, x1, c);
+                        long area = recolour(expected, y1, x1, c);
+                        if (region.isCurrent()) {
+                            assertEquals(area, region.getArea());
+                        }
+                        break;
+                }
+                assertArrayEquals(expected.toArray(), actual.toArray());
+            }
+            RegionIndex.Region region = index.regionAt(actual, 20, 30);
+            assertEquals(recolour(expected, 20, 30, actual.get(20, 30)), region.getArea());
+        }
+    }
+
+    @Test
+    public void testSessionUndoAndRetainedShapes() throws Exception {
+        CanvasSession session = new CanvasSession(new ByteSink(new ByteArrayOutputStream()));
+        session.setRegionIndex(true);
+        session.setRetained(true);
+        session.setAutoRender(false);
+        session.execute("C 40 20");
+        session.execute("R 5 5 30 15");
+        session.execute("B 1 1 o");
+        RegionIndex index = session.getRegionIndex();
+        assertNotNull(index);
+        Canvas canvas = session.getCanvas();
+        assertEquals(800 - 26 * 11, index.regionAt(canvas, 1, 1).getArea());
+        char[][] filled = canvas.toArray();
+
+        assertEquals(24 * 9, index.regionAt(canvas, 10, 10).getArea());
+        session.execute("L 6 10 29 10");
+        assertEquals(24 * 4, index.regionAt(canvas, 8, 10).getArea());
+        session.execute("B 20 8 b");
+        assertEquals('b', canvas.get(8, 20));
+        assertEquals(' ', canvas.get(12, 20));
+
+        session.execute("U");
+        session.execute("U");
+        assertArrayEquals(filled, canvas.toArray());
+        session.execute("B 1 1 c");
+        assertEquals('c', canvas.get(20, 40));
+        assertEquals(800 - 26 * 11, index.regionAt(canvas, 20, 40).getArea());
+    }
+
+    /**
+     * Recolours the 4-connected region of {@code canvas} around a cell one cell at a time and
+     * returns its area.
+     */
+    private static long recolour(Canvas canvas, int row, int col, char c) {
+        char k = canvas.get(row, col);
+        boolean[][] seen = new boolean[canvas.getInnerHeight() + 2][canvas.getInnerWidth() + 2];
+        ArrayDeque<int[]> queue = new ArrayDeque<>();
+        queue.add(new int[] {row, col});
+        seen[row][col] = true;
+        long area = 0;
+        while (!queue.isEmpty()) {
+            int[] cell = queue.poll();
+            area++;
+            int[][] next = {{cell[0] - 1, cell[1]}, {cell[0] + 1, cell[1]}, {cell[0], cell[1] - 1}, {cell[0], cell[1] + 1}};
+            for (int[] n : next) {
+                if (n[0] >= 1 && n[0] <= canvas.getInnerHeight() && n[1] >= 1 && n[1] <= canvas.getInnerWidth()
+                        && !seen[n[0]][n[1]] && canvas.get(n[0], n[1]) == k) {
+                    seen[n[0]][n[1]] = true;
+                    queue.add(n);
+                }
+            }
+            canvas.set(cell[0], cell[1], c);
+        }
+        return area;
+    }
+}
@@ -0,0 +1,135 @@
+package org.canvas.lonell.fill;
+
+import org.canvas.lonell.entity.Canvas;
+import org.canvas.lonell.entity.StorageType;
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class ScanlineFillEngineTest {
+
+    @Test
+    public void testMatchesStackFillOnRandomWalls() throws Exception {
+        Random random = new Random(42);
+        for (int round = 0; round < 50; round++) {
+            int width = 1 + random.nextInt(30);
+            int height = 1 + random.nextInt(30);
+            Canvas expected = randomWalls(width, height, new Random(round));
+            Canvas actual = randomWalls(width, height, new Random(round));
+            int row = 1 + random.nextInt(height);
+            int col = 1 + random.nextInt(width);
+
+            new StackFillEngine().fill(expected, row, col, 'o');
+            new ScanlineFillEngine().fill(actual, row, col, 'o');
+
+            assertArrayEquals(expected.toArray(), actual.toArray());
+        }
+    }
+
+    @Test
+    public void testMatchesStackFillOnTiledStorage() throws Exception {
+        Random random = new Random(7);
+        for (int round = 0; round < 10; round++) {
+            int width = 1 + random.nextInt(200);
+            int height = 1 + random.nextInt(200);
+            Canvas expected = randomWalls(width, height, new Random(round));
+            Canvas actual = new Canvas(width, height, StorageType.TILED);
+            copy(expected, actual);
+            int row = 1 + random.nextInt(height);
+            int col = 1 + random.nextInt(width);
+
+            new StackFillEngine().fill(expected, row, col, 'o');
+            new ScanlineFillEngine().fill(actual, row, col, 'o');
+
+            assertArrayEquals(expected.toArray(), actual.toArray());
+        }
+    }
+
+    @Test
+    public void testSeedOnLineFillsTouchingRegions() throws Exception {
+        Canvas expected = canvasOf(5, 3);
+        Canvas actual = canvasOf(5, 3);
+        for (int row = 1; row <= 3; row++) {
+            expected.set(row, 3, 'x');
+            actual.set(row, 3, 'x');
+        }
+
+        new StackFillEngine().fill(expected, 2, 3, 'o');
+        new ScanlineFillEngine().fill(actual, 2, 3, 'o');
+
+        assertArrayEquals(expected.toArray(), actual.toArray());
+    }
+
+    /**
+     * Covers the engine on its own. A {@code B} command run through {@code CanvasSession} also
+     * journals the cells it paints for undo, and that journal allocates on every fill.
+     */
+    @Test
+    public void testSteadyStateEngineFillAllocatesNothing() throws Exception {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+        Assume.assumeTrue(threads.isThreadAllocatedMemorySupported());
+        threads.setThreadAllocatedMemoryEnabled(true);
+        long id = Thread.currentThread().getId();
+
+        Canvas canvas = randomWalls(200, 200, new Random(7));
+        ScanlineFillEngine engine = new ScanlineFillEngine(new PointQueue());
+        for (int i = 0; i < 200; i++) {
+            fillAndClear(engine, canvas);
+        }
+
+        // Two back-to-back reads measure what the probe itself allocates, so the loop must add nothing to it.
+        long probeBefore = threads.getThreadAllocatedBytes(id);
+        long probeAfter = threads.getThreadAllocatedBytes(id);
+        long overhead = probeAfter - probeBefore;
+        long before = threads.getThreadAllocatedBytes(id);
+        for (int i = 0; i < 100; i++) {
+            fillAndClear(engine, canvas);
+        }
+        long after = threads.getThreadAllocatedBytes(id);
+
+        assertEquals(overhead, after - before);
+    }
+
+    private void fillAndClear(FillEngine engine, Canvas canvas) {
+        engine.fill(canvas, 1, 1, 'o');
+        for (int row = 1; row <= canvas.getInnerHeight(); row++) {
+            for (int col = 1; col <= canvas.getInnerWidth(); col++) {
+                if (canvas.get(row, col) == 'o') {
+                    canvas.set(row, col, ' ');
+                }
+            }
+        }
+    }
+
+    private Canvas canvasOf(int width, int height) {
+        return new Canvas(width, height, StorageType.FLAT);
+    }
+
+    private void copy(Canvas from, Canvas to) {
+        for (int row = 1; row <= from.getInnerHeight(); row++) {
+            for (int col = 1; col <= from.getInnerWidth(); col++) {
+                to.set(row, col, from.get(row, col));
+            }
+        }
+    }
+
+    private Canvas randomWalls(int width, int height, Random random) {
+        Canvas canvas = canvasOf(width, height);
+        for (int row = 1; row <= height; row++) {
+            for (int col = 1; col <= width; col++) {
+                if (random.nextInt(3) == 0) {
+                    canvas.set(row, col, 'x');
+                }
+            }
+        }
+        return canvas;
+    }
+}
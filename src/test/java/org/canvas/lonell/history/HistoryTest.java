@@ -0,0 +1,77 @@
+package org.canvas.lonell.history;
+
+import org.canvas.lonell.entity.Canvas;
+import org.canvas.lonell.entity.FlatStorage;
+import org.canvas.lonell.entity.StorageType;
+import org.canvas.lonell.fill.ParallelFillEngine;
+import org.junit.Test;
+
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class HistoryTest {
+
+    private final History history = new History();
+
+    @Test
+    public void testUndoRedoOverlappingWrites() throws Exception {
+        Canvas canvas = new Canvas(new JournalingStorage(new FlatStorage(6, 3), history));
+        char[][] blank = canvas.toArray();
+
+        history.begin();
+        canvas.paintRow(2, 1, 6, 'x');
+        canvas.fillRow(2, 3, 4, 'o');
+        canvas.set(2, 4, 'z');
+        history.commit(canvas, canvas);
+        char[][] drawn = canvas.toArray();
+
+        history.undo(canvas);
+        assertArrayEquals(blank, canvas.toArray());
+        history.redo(canvas);
+        assertArrayEquals(drawn, canvas.toArray());
+    }
+
+    @Test
+    public void testUndoParallelFill() throws Exception {
+        Canvas canvas = new Canvas(new JournalingStorage(StorageType.TILED.create(300, 300), history));
+        canvas.paintColumn(150, 1, 300, 'x');
+        char[][] before = canvas.toArray();
+        ForkJoinPool pool = new ForkJoinPool(4);
+
+        history.begin();
+        new ParallelFillEngine(pool, null, 0).fill(canvas, 10, 10, 'o');
+        history.commit(canvas, canvas);
+        pool.shutdown();
+
+        history.undo(canvas);
+        assertArrayEquals(before, canvas.toArray());
+    }
+
+    @Test
+    public void testEvictsOldestEntriesOverLimit() throws Exception {
+        Canvas canvas = new Canvas(new JournalingStorage(new FlatStorage(100, 100), history));
+        for (int row = 1; row <= 10; row++) {
+            history.begin();
+            canvas.paintRow(row, 1, 100, 'x');
+            history.commit(canvas, canvas);
+        }
+        long perEntry = history.memoryBytes() / 10;
+
+        history.setLimit(perEntry * 3);
+        assertTrue(history.memoryBytes() <= perEntry * 3);
+
+        int undone = 0;
+        while (history.canUndo()) {
+            history.undo(canvas);
+            undone++;
+        }
+        assertEquals(3, undone);
+        assertEquals('x', canvas.get(7, 1));
+        assertEquals(' ', canvas.get(8, 1));
+        assertFalse(history.canUndo());
+    }
+}
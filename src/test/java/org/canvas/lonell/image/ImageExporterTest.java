@@ -0,0 +1,65 @@
+package org.canvas.lonell.image;
+
+import org.canvas.lonell.entity.Canvas;
+import org.canvas.lonell.entity.StorageType;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class ImageExporterTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testWritesPpm() throws Exception {
+        Canvas canvas = new Canvas(3, 2);
+        canvas.paintRow(1, 1, 2, 'x');
+        canvas.set(2, 3, 'o');
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageExporter.export(canvas, Channels.newChannel(out), Palette.parse("o=ff8000"), ImageExporter.Format.PPM);
+
+        byte[] header = "P6\n3 2\n255\n".getBytes(StandardCharsets.US_ASCII);
+        byte[] bytes = out.toByteArray();
+        assertArrayEquals(header, Arrays.copyOf(bytes, header.length));
+        assertArrayEquals(new byte[]{
+            0, 0, 0, 0, 0, 0, -1, -1, -1,
+            -1, -1, -1, -1, -1, -1, -1, -128, 0}, Arrays.copyOfRange(bytes, header.length, bytes.length));
+    }
+
+    @Test
+    public void testWritesPngAcrossRowChunks() throws Exception {
+        int width = ImageExporter.CHUNK * 2 + 100;
+        Canvas canvas = new Canvas(width, 300, StorageType.TILED);
+        canvas.paintLine(1, 1, width, 300, 'x');
+        canvas.fillBlock(ImageExporter.CHUNK - 10, 100, ImageExporter.CHUNK + 10, 120, 'é');
+        Palette palette = new Palette();
+        File file = folder.newFile("canvas.png");
+        ImageExporter.export(canvas, file.toPath(), palette);
+
+        BufferedImage image = ImageIO.read(file);
+        assertEquals(width, image.getWidth());
+        assertEquals(300, image.getHeight());
+        for (int row = 1; row <= 300; row += 7) {
+            for (int col = 1; col <= width; col += 13) {
+                assertEquals(palette.rgb(canvas.get(row, col)), image.getRGB(col - 1, row - 1) & 0xffffff);
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectsMalformedPalette() throws Exception {
+        Palette.parse("o=ff80");
+    }
+}
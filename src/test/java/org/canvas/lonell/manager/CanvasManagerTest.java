@@ -76,7 +76,7 @@ public class CanvasManagerTest {
     public void testInvalidCommand() throws Exception {
         CanvasManager.createCanvas(20, 4);
         CanvasManager.execute( "H", "1", "2", "3", "4");
-        assertEquals("Sorry, invalid command. Please try: C, L, R, B or Q.\n", outContent.toString());
+        assertEquals("Sorry, invalid command. Please try: C, L, R, P, F, K, B, S, O, E, U, Y, V, STATS or Q.\n", outContent.toString());
     }
     
     @Test
@@ -127,10 +127,70 @@ public class CanvasManagerTest {
     }
 
     @Test
-    public void testLineOnlyHorizontalOrVerticalInvalid() throws Exception {
+    public void testLineEndOutsideCanvasEdge() throws Exception{
         CanvasManager.createCanvas(20, 4);
-        CanvasManager.execute( "L", "1", "1", "4", "3");
-        assertEquals("Invalid arguments, only horizontal and vertical lines are supported.\n", outContent.toString());
+        CanvasManager.execute( "L", "1", "1", "25", "1");
+        assertEquals("Invalid arguments, coordinates are outside canvas dimensions.\n", outContent.toString());
+    }
+
+    @Test
+    public void testLineDiagonalIsValid() throws Exception {
+        CanvasManager.createCanvas(20, 4);
+        CanvasManager.execute( "L", "4", "3", "1", "1");
+        assertEquals(
+            "----------------------\n" +
+            "|x                   |\n" +
+            "| xx                 |\n" +
+            "|   x                |\n" +
+            "|                    |\n" +
+            "----------------------\n", outContent.toString());
+    }
+
+    @Test
+    public void testPolylineIsValid() throws Exception {
+        CanvasManager.createCanvas(20, 4);
+        CanvasManager.execute( "P", "1", "4", "4", "1", "10", "1", "10", "4");
+        assertEquals(
+            "----------------------\n" +
+            "|   xxxxxxx          |\n" +
+            "|  x      x          |\n" +
+            "| x       x          |\n" +
+            "|x        x          |\n" +
+            "----------------------\n", outContent.toString());
+    }
+
+    @Test
+    public void testFilledRectangleThenCopy() throws Exception {
+        CanvasManager.createCanvas(20, 4);
+        CanvasManager.execute( "F", "3", "1", "1", "2", "o");
+        CanvasManager.execute( "K", "1", "1", "4", "2", "3", "2");
+        assertEquals(
+            "----------------------\n" +
+            "|ooo                 |\n" +
+            "|ooo                 |\n" +
+            "|                    |\n" +
+            "|                    |\n" +
+            "----------------------\n" +
+            "----------------------\n" +
+            "|ooo                 |\n" +
+            "|ooooo               |\n" +
+            "|  ooo               |\n" +
+            "|                    |\n" +
+            "----------------------\n", outContent.toString());
+    }
+
+    @Test
+    public void testCopyDestinationOutsideCanvas() throws Exception {
+        CanvasManager.createCanvas(20, 4);
+        CanvasManager.execute( "K", "1", "1", "4", "2", "18", "1");
+        assertEquals("Invalid arguments, coordinates are outside canvas dimensions.\n", outContent.toString());
+    }
+
+    @Test
+    public void testPolylineOddNumberOfArguments() throws Exception {
+        CanvasManager.createCanvas(20, 4);
+        CanvasManager.execute( "P", "1", "1", "4", "3", "5");
+        assertEquals("Invalid number of arguments.\n", outContent.toString());
     }
 
     @Test
@@ -420,4 +480,60 @@ public class CanvasManagerTest {
             "|oooooooooooooooooooo|\n" +
             "----------------------\n", outContent.toString());
     }
+
+    @Test
+    public void testUndoAndRedoBucketFill() throws Exception {
+        CanvasManager.createCanvas(4, 2);
+        CanvasManager.execute("L", "1", "1", "4", "1");
+        CanvasManager.execute("B", "1", "2", "o");
+        outContent.reset();
+        CanvasManager.execute("U");
+        CanvasManager.execute("Y");
+        assertEquals(
+            "------\n" +
+            "|xxxx|\n" +
+            "|    |\n" +
+            "------\n" +
+            "------\n" +
+            "|xxxx|\n" +
+            "|oooo|\n" +
+            "------\n", outContent.toString());
+    }
+
+    @Test
+    public void testUndoCreateRestoresPreviousCanvas() throws Exception {
+        CanvasManager.execute("C", "1", "1");
+        CanvasManager.execute("B", "1", "1", "o");
+        CanvasManager.execute("C", "2", "1");
+        outContent.reset();
+        CanvasManager.execute("U");
+        CanvasManager.execute("U");
+        assertEquals(
+            "---\n" +
+            "|o|\n" +
+            "---\n" +
+            "---\n" +
+            "| |\n" +
+            "---\n", outContent.toString());
+    }
+
+    @Test
+    public void testNothingToUndoOrRedo() throws Exception {
+        CanvasManager.execute("U");
+        CanvasManager.execute("C", "1", "1");
+        outContent.reset();
+        CanvasManager.execute("Y");
+        assertEquals("Nothing to redo.\n", outContent.toString());
+    }
+
+    @Test
+    public void testNewCommandClearsRedo() throws Exception {
+        CanvasManager.execute("C", "3", "1");
+        CanvasManager.execute("L", "1", "1", "1", "1");
+        CanvasManager.execute("U");
+        CanvasManager.execute("L", "3", "1", "3", "1");
+        outContent.reset();
+        CanvasManager.execute("Y");
+        assertEquals("Nothing to redo.\n", outContent.toString());
+    }
 }
@@ -0,0 +1,78 @@
+package org.canvas.lonell.manager;
+
+import org.canvas.lonell.render.ByteSink;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import static org.junit.Assert.assertEquals;
+
+public class ScriptRunnerTest {
+
+    private static final String NL = System.lineSeparator();
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    @Test
+    public void testRendersOnlyFinalFrame() throws Exception {
+        File script = write("C 4 2\r\nL 1 1 4 1\n\nB 1 2 o\nH 1\n");
+        ScriptRunner runner = new ScriptRunner(new CanvasSession(new ByteSink(out)), 0);
+        runner.run(script.toPath());
+
+        assertEquals(4, runner.getCommands());
+        assertEquals(
+            "Sorry, invalid command. Please try: C, L, R, P, F, K, B, S, O, E, U, Y, V, STATS or Q." + NL +
+            "------" + NL +
+            "|xxxx|" + NL +
+            "|oooo|" + NL +
+            "------" + NL, out.toString());
+    }
+
+    @Test
+    public void testRendersEveryNCommands() throws Exception {
+        File script = write("C 1 1\nB 1 1 o\nL 1 1 1 1");
+        ScriptRunner runner = new ScriptRunner(new CanvasSession(new ByteSink(out)), 2);
+        runner.run(script.toPath());
+
+        String frame = "---" + NL + "|o|" + NL + "---" + NL;
+        assertEquals(frame + frame, out.toString());
+    }
+
+    @Test
+    public void testStopsAtQuit() throws Exception {
+        File script = write("C 1 1\nQ\nB 1 1 o\n");
+        ScriptRunner runner = new ScriptRunner(new CanvasSession(new ByteSink(out)), 0);
+        runner.run(script.toPath());
+
+        assertEquals(2, runner.getCommands());
+        assertEquals("---" + NL + "| |" + NL + "---" + NL, out.toString());
+    }
+
+    @Test
+    public void testRejectsColourOutsideBasicPlane() throws Exception {
+        File script = write("C 2 1\nB 1 1 \uD83D\uDE00\nF 1 1 2 1 \uD83D\uDE00\n");
+        ScriptRunner runner = new ScriptRunner(new CanvasSession(new ByteSink(out)), 0);
+        runner.run(script.toPath());
+
+        assertEquals(
+            "Invalid colour. The colour must be a single character." + NL +
+            "Invalid colour. The colour must be a single character." + NL +
+            "----" + NL +
+            "|  |" + NL +
+            "----" + NL, out.toString());
+    }
+
+    private File write(String content) throws Exception {
+        File file = folder.newFile();
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+}
@@ -0,0 +1,74 @@
+package org.canvas.lonell.manager;
+
+import org.canvas.lonell.render.ByteSink;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class SessionRegistryTest {
+
+    private static final String NL = System.lineSeparator();
+
+    @Test
+    public void testOpenReturnsSameSessionForId() throws Exception {
+        SessionRegistry registry = new SessionRegistry();
+        CanvasSession session = registry.open("a", new ByteSink(new ByteArrayOutputStream()));
+
+        assertSame(session, registry.open("a", new ByteSink(new ByteArrayOutputStream())));
+        assertSame(session, registry.close("a"));
+        assertNull(registry.get("a"));
+    }
+
+    @Test
+    public void testSessionsRunConcurrentlyWithoutSharingCanvas() throws Exception {
+        final SessionRegistry registry = new SessionRegistry();
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        List<Future<String>> results = new ArrayList<>();
+
+        for (int i = 0; i < 64; i++) {
+            final int width = 1 + i % 5;
+            final String id = "session-" + i;
+            results.add(pool.submit(new Callable<String>() {
+                @Override
+                public String call() throws Exception {
+                    ByteArrayOutputStream out = new ByteArrayOutputStream();
+                    CanvasSession session = registry.open(id, new ByteSink(out));
+                    session.execute("C " + width + " 1");
+                    session.execute("B 1 1 o");
+                    session.execute("Q");
+                    assertTrue(session.isClosed());
+                    return out.toString();
+                }
+            }));
+        }
+
+        for (int i = 0; i < results.size(); i++) {
+            int width = 1 + i % 5;
+            String border = repeat('-', width + 2);
+            assertEquals(
+                border + NL + "|" + repeat(' ', width) + "|" + NL + border + NL +
+                border + NL + "|" + repeat('o', width) + "|" + NL + border + NL, results.get(i).get());
+        }
+        pool.shutdown();
+        assertEquals(64, registry.size());
+    }
+
+    private String repeat(char c, int count) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            builder.append(c);
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,97 @@
+package org.canvas.lonell.metrics;
+
+import org.canvas.lonell.manager.CanvasSession;
+import org.canvas.lonell.render.ByteSink;
+import org.junit.Test;
+
+import javax.management.Attribute;
+import javax.management.MBeanServer;
+import javax.management.Notification;
+import javax.management.NotificationListener;
+import javax.management.ObjectName;
+import java.io.ByteArrayOutputStream;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class CommandStatsTest {
+
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    private final CanvasSession session = new CanvasSession(new ByteSink(out));
+
+    @Test
+    public void testHistogramPercentilesWithinBucketError() throws Exception {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long i = 1; i <= 1000; i++) {
+            histogram.record(i * 1000);
+        }
+
+        assertEquals(1000, histogram.getCount());
+        assertEquals(1000000, histogram.getMax());
+        assertEquals(500500, histogram.getMean());
+        long p50 = histogram.getPercentile(50);
+        assertTrue(p50 >= 500000 && p50 <= 500000 * 1.125);
+        long p99 = histogram.getPercentile(99);
+        assertTrue(p99 >= 990000 && p99 <= 1000000);
+    }
+
+    @Test
+    public void testRecordsCountsCellsAndBytesPerCommand() throws Exception {
+        session.execute("C 4 2");
+        session.execute("L 1 1 4 1");
+        session.execute("L 1 1 9 1");
+        session.execute("B 1 2 o");
+        session.execute("H");
+
+        Map<String, CommandSummary> byCommand = session.getStats().getByCommand();
+        assertEquals(2, byCommand.get("L").getCount());
+        assertEquals(1, byCommand.get("L").getFailures());
+        assertEquals(4, byCommand.get("L").getCellsWritten());
+        assertEquals(8, byCommand.get("C").getCellsWritten());
+        assertEquals(4, byCommand.get("B").getCellsWritten());
+        assertEquals(1, byCommand.get("?").getFailures());
+        assertEquals(4 * (6 + System.lineSeparator().length()), byCommand.get("L").getBytesRendered());
+        assertEquals(5, session.getStats().getCommands());
+        assertEquals(2, session.getStats().getFailures());
+    }
+
+    @Test
+    public void testStatsCommandPrintsTable() throws Exception {
+        session.execute("C 1 1");
+        out.reset();
+        session.execute("STATS");
+
+        String[] lines = out.toString().split(System.lineSeparator());
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].startsWith("command"));
+        assertTrue(lines[1].matches("C +1 +0 .* 1 +" + (9 + 3 * System.lineSeparator().length())));
+    }
+
+    @Test
+    public void testExposedOverJmxWithSlowNotifications() throws Exception {
+        CommandStats stats = session.getStats();
+        stats.register("test");
+        final List<Notification> received = new ArrayList<>();
+        stats.addNotificationListener(new NotificationListener() {
+            @Override
+            public void handleNotification(Notification notification, Object handback) {
+                received.add(notification);
+            }
+        }, null, null);
+
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName("org.canvas.lonell:type=CommandStats,name=\"test\"");
+        server.setAttribute(name, new Attribute("SlowThresholdMillis", 0L));
+        session.execute("C 3 3");
+        session.execute("B 1 1 o");
+
+        assertEquals(2L, server.getAttribute(name, "Commands"));
+        assertEquals(CommandStats.SLOW_RENDER, received.get(0).getType());
+        assertEquals(CommandStats.SLOW_FILL, received.get(1).getType());
+        server.unregisterMBean(name);
+    }
+}
@@ -0,0 +1,64 @@
+package org.canvas.lonell.render;
+
+import org.canvas.lonell.entity.Canvas;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+
+import static org.junit.Assert.assertEquals;
+
+public class DeltaRendererTest {
+
+    private static final String NL = System.lineSeparator();
+
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    private Canvas canvas;
+
+    @Before
+    public void setUp() {
+        canvas = new Canvas(4, 3);
+        canvas.clear();
+    }
+
+    @Test
+    public void testPatchEmitsOnlyChangedRows() throws Exception {
+        DeltaRenderer renderer = new DeltaRenderer(new ByteSink(out), DeltaRenderer.Mode.PATCH);
+        renderer.render(canvas);
+        out.reset();
+
+        canvas.paintRow(2, 1, 3, 'x');
+        renderer.render(canvas);
+        assertEquals("2:|xxx |" + NL, out.toString());
+
+        out.reset();
+        renderer.render(canvas);
+        assertEquals("", out.toString());
+    }
+
+    @Test
+    public void testAnsiAddressesChangedRows() throws Exception {
+        DeltaRenderer renderer = new DeltaRenderer(new ByteSink(out), DeltaRenderer.Mode.ANSI);
+        renderer.render(canvas);
+        out.reset();
+
+        canvas.paintColumn(4, 1, 2, 'x');
+        renderer.render(canvas);
+        assertEquals(
+            "\u001b[2;1H|   x|" + NL +
+            "\u001b[3;1H|   x|" + NL +
+            "\u001b[6;1H", out.toString());
+    }
+
+    @Test
+    public void testNewCanvasGetsFullFrame() throws Exception {
+        DeltaRenderer renderer = new DeltaRenderer(new ByteSink(out), DeltaRenderer.Mode.PATCH);
+        renderer.render(canvas);
+        out.reset();
+
+        Canvas next = new Canvas(1, 1);
+        next.clear();
+        renderer.render(next);
+        assertEquals("---" + NL + "| |" + NL + "---" + NL, out.toString());
+    }
+}
@@ -0,0 +1,156 @@
+package org.canvas.lonell.render;
+
+import org.canvas.lonell.entity.Canvas;
+import org.canvas.lonell.manager.CanvasSession;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class FramePumpTest {
+
+    @Test
+    public void testCommandsDoNotWaitForBlockedOutput() throws Exception {
+        BlockingStream out = new BlockingStream();
+        CanvasSession session = new CanvasSession(new ByteSink(out));
+        session.setAsyncRender(true);
+        session.execute("C 20 4");
+        assertTrue(out.entered.await(10, TimeUnit.SECONDS));
+
+        for (int row = 1; row <= 4; row++) {
+            session.execute("L 1 " + row + " " + (5 * row) + " " + row);
+        }
+        session.execute("Z");
+        assertEquals(0, out.size());
+
+        out.release.countDown();
+        session.flush();
+        String frame = "----------------------\n"
+                + "|xxxxx               |\n"
+                + "|xxxxxxxxxx          |\n"
+                + "|xxxxxxxxxxxxxxx     |\n"
+                + "|xxxxxxxxxxxxxxxxxxxx|\n"
+                + "----------------------\n";
+        String blank = "----------------------\n"
+                + "|                    |\n"
+                + "|                    |\n"
+                + "|                    |\n"
+                + "|                    |\n"
+                + "----------------------\n";
+        String invalid = "Sorry, invalid command. Please try: C, L, R, P, F, K, B, S, O, E, U, Y, V, STATS or Q.\n";
+        assertEquals(blank + frame + invalid, out.toString().replace(System.lineSeparator(), "\n"));
+        session.setAsyncRender(false);
+    }
+
+    @Test
+    public void testEncodingDoesNotHoldTheSession() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ByteSink sink = new ByteSink(out);
+        final CountDownLatch entered = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final CanvasSession session = new CanvasSession(sink);
+        session.setRenderer(new FrameRenderer(sink) {
+            @Override
+            public void render(Canvas canvas) throws IOException {
+                entered.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    throw new IOException(e);
+                }
+                super.render(canvas);
+            }
+        });
+        session.setAsyncRender(true);
+        session.execute("C 3 1");
+        assertTrue(entered.await(10, TimeUnit.SECONDS));
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            executor.submit(new Runnable() {
+                @Override
+                public void run() {
+                    session.execute("L 1 1 3 1");
+                    session.prompt("> ");
+                }
+            }).get(10, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals('x', session.getCanvas().get(1, 2));
+        assertEquals(0, out.size());
+
+        release.countDown();
+        session.flush();
+        String blank = "-----\n|   |\n-----\n";
+        String line = "-----\n|xxx|\n-----\n";
+        assertEquals(blank + line + "> ", out.toString().replace(System.lineSeparator(), "\n"));
+        session.setAsyncRender(false);
+    }
+
+    @Test
+    public void testDeltaFramesMergeChangedRows() throws Exception {
+        BlockingStream out = new BlockingStream();
+        ByteSink sink = new ByteSink(out);
+        CanvasSession session = new CanvasSession(sink);
+        session.setRenderer(new DeltaRenderer(sink, DeltaRenderer.Mode.PATCH));
+        session.setAsyncRender(true);
+        session.execute("C 5 3");
+        assertTrue(out.entered.await(10, TimeUnit.SECONDS));
+        session.execute("L 1 1 2 1");
+        session.execute("L 4 3 5 3");
+
+        out.release.countDown();
+        session.setAsyncRender(false);
+        String written = out.toString().replace(System.lineSeparator(), "\n");
+        assertTrue(written, written.endsWith("1:|xx   |\n3:|   xx|\n"));
+    }
+
+    /**
+     * Output stream whose first write blocks until released.
+     */
+    private static class BlockingStream extends OutputStream {
+        final CountDownLatch entered = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] {(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            entered.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                throw new IOException(e);
+            }
+            synchronized (bytes) {
+                bytes.write(b, off, len);
+            }
+        }
+
+        int size() {
+            synchronized (bytes) {
+                return bytes.size();
+            }
+        }
+
+        @Override
+        public String toString() {
+            synchronized (bytes) {
+                return bytes.toString();
+            }
+        }
+    }
+}
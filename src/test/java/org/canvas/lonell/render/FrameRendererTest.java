@@ -0,0 +1,121 @@
+package org.canvas.lonell.render;
+
+import org.canvas.lonell.entity.Canvas;
+import org.canvas.lonell.entity.StorageType;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class FrameRendererTest {
+
+    private static final String NL = System.lineSeparator();
+
+    private Canvas canvas;
+
+    @Before
+    public void setUp() {
+        canvas = new Canvas(4, 2);
+        canvas.clear();
+        canvas.paintRow(1, 2, 3, 'x');
+    }
+
+    @Test
+    public void testFrameIsWrittenInOneCall() throws Exception {
+        CountingStream out = new CountingStream();
+        new FrameRenderer(new ByteSink(out)).render(canvas);
+
+        assertEquals(1, out.writes);
+        assertEquals(
+            "------" + NL +
+            "| xx |" + NL +
+            "|    |" + NL +
+            "------" + NL, out.toString());
+    }
+
+    @Test
+    public void testRendersToChannel() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        FrameRenderer renderer = new FrameRenderer(new ByteSink(Channels.newChannel(out)));
+        renderer.render(canvas);
+        renderer.render(canvas);
+
+        String frame =
+            "------" + NL +
+            "| xx |" + NL +
+            "|    |" + NL +
+            "------" + NL;
+        assertEquals(frame + frame, out.toString());
+    }
+
+    @Test
+    public void testEncodesNonAsciiAsUtf8() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        canvas.set(2, 1, 'é');
+        canvas.set(2, 2, '€');
+        new FrameRenderer(new ByteSink(out)).render(canvas);
+
+        assertEquals(
+            "------" + NL +
+            "| xx |" + NL +
+            "|é€  |" + NL +
+            "------" + NL, out.toString("UTF-8"));
+    }
+
+    @Test
+    public void testLargeFrameIsWrittenInBufferSizedChunks() throws Exception {
+        CountingStream out = new CountingStream();
+        Canvas large = new Canvas(6000, 3000, StorageType.TILED);
+        large.set(3000, 6000, 'o');
+        new FrameRenderer(new ByteSink(out)).render(large);
+
+        String frame = out.toString();
+        assertTrue(out.writes > 1);
+        assertEquals(3002L * (6002 + NL.length()), frame.length());
+        assertTrue(frame.endsWith("o|" + NL + frame.substring(0, 6002 + NL.length())));
+    }
+
+    @Test
+    public void testStripedEncodingMatchesSequential() throws Exception {
+        Canvas large = new Canvas(1100, 1000, StorageType.FLAT);
+        large.paintRow(1, 1, 1100, 'x');
+        large.paintColumn(550, 1, 1000, 'é');
+        large.set(1000, 1100, 'o');
+
+        ByteArrayOutputStream sequential = new ByteArrayOutputStream();
+        new FrameRenderer(new ByteSink(sequential), null).render(large);
+        ForkJoinPool pool = new ForkJoinPool(3);
+        CountingStream striped = new CountingStream();
+        new FrameRenderer(new ByteSink(striped), pool).render(large);
+        pool.shutdown();
+
+        assertEquals(3, striped.writes);
+        assertArrayEquals(sequential.toByteArray(), striped.toByteArray());
+    }
+
+    private static class CountingStream extends ByteArrayOutputStream {
+        int writes;
+
+        @Override
+        public synchronized void write(byte[] b, int off, int len) {
+            writes++;
+            super.write(b, off, len);
+        }
+
+        @Override
+        public void write(int b) {
+            throw new AssertionError("single byte write");
+        }
+
+        @Override
+        public void flush() throws IOException {
+        }
+    }
+}
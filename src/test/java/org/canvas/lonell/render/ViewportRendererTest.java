@@ -0,0 +1,76 @@
+package org.canvas.lonell.render;
+
+import org.canvas.lonell.entity.Canvas;
+import org.canvas.lonell.entity.StorageType;
+import org.canvas.lonell.manager.CanvasSession;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+
+import static org.junit.Assert.assertEquals;
+
+public class ViewportRendererTest {
+
+    private static final String NL = System.lineSeparator();
+
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    private final ViewportRenderer renderer = new ViewportRenderer(new ByteSink(out));
+
+    @Test
+    public void testWindowIsClippedToCanvas() throws Exception {
+        Canvas canvas = new Canvas(6, 4);
+        canvas.paintLine(1, 1, 6, 1, 'x');
+        canvas.paintLine(5, 1, 5, 4, 'é');
+        renderer.setWindow(4, 1, 10, 2, 1);
+        renderer.render(canvas);
+
+        assertEquals(
+            "-----" + NL +
+            "|xxx|" + NL +
+            "| é |" + NL +
+            "-----" + NL, out.toString("UTF-8"));
+    }
+
+    @Test
+    public void testOverviewCostFollowsWindowSize() throws Exception {
+        Canvas canvas = new Canvas(Canvas.MAX_DIMENSION, Canvas.MAX_DIMENSION, StorageType.RLE);
+        canvas.fillBlock(1, 1, Canvas.MAX_DIMENSION / 2, Canvas.MAX_DIMENSION, 'o');
+        canvas.paintLine(Canvas.MAX_DIMENSION - 5, Canvas.MAX_DIMENSION / 4 * 3, Canvas.MAX_DIMENSION - 5, Canvas.MAX_DIMENSION, 'x');
+        renderer.setWindow(1, 1, 4, 4, Canvas.MAX_DIMENSION / 4);
+        renderer.render(canvas);
+
+        assertEquals(
+            "------" + NL +
+            "|oo  |" + NL +
+            "|oo  |" + NL +
+            "|oo  |" + NL +
+            "|oo x|" + NL +
+            "------" + NL, out.toString("UTF-8"));
+    }
+
+    @Test
+    public void testViewportCommand() throws Exception {
+        CanvasSession session = new CanvasSession(new ByteSink(out));
+        session.execute("C 20 4");
+        session.execute("F 1 1 10 4 o");
+        out.reset();
+
+        session.execute("V 9 2 4 2");
+        assertEquals(
+            "------" + NL +
+            "|oo  |" + NL +
+            "|oo  |" + NL +
+            "------" + NL, out.toString());
+
+        out.reset();
+        session.execute("V 1 1 5 2 4");
+        assertEquals(
+            "-------" + NL +
+            "|ooo  |" + NL +
+            "-------" + NL, out.toString());
+
+        out.reset();
+        session.execute("V");
+        assertEquals(6, out.toString().split(NL).length);
+    }
+}
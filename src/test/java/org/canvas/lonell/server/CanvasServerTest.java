@@ -0,0 +1,181 @@
+package org.canvas.lonell.server;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.assertEquals;
+
+public class CanvasServerTest {
+
+    private static final String NL = System.lineSeparator();
+
+    private CanvasServer server;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new CanvasServer(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        server.start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.close();
+    }
+
+    @Test
+    public void testEachConnectionHasItsOwnCanvas() throws Exception {
+        try (Socket a = connect(); Socket b = connect()) {
+            send(a, "C 2 1\n");
+            send(b, "C 3 1\r\n");
+            assertEquals("----" + NL + "|  |" + NL + "----" + NL, read(a, 12 + 3 * NL.length()));
+            assertEquals("-----" + NL + "|   |" + NL + "-----" + NL, read(b, 15 + 3 * NL.length()));
+
+            send(a, "B 1 1 o\nL 9 9 9 9\n");
+            assertEquals("----" + NL + "|oo|" + NL + "----" + NL +
+                    "Invalid arguments, coordinates are outside canvas dimensions." + NL,
+                    read(a, 12 + 3 * NL.length() + 61 + NL.length()));
+        }
+    }
+
+    @Test
+    public void testQuitClosesOnlyThatConnection() throws Exception {
+        try (Socket a = connect(); Socket b = connect()) {
+            send(a, "C 1 1\nQ\nB 1 1 o\n");
+            assertEquals("---" + NL + "| |" + NL + "---" + NL, read(a, 9 + 3 * NL.length()));
+            assertEquals(-1, a.getInputStream().read());
+
+            send(b, "C 1 1\n");
+            assertEquals("---" + NL + "| |" + NL + "---" + NL, read(b, 9 + 3 * NL.length()));
+        }
+        for (int i = 0; i < 100 && server.getRegistry().size() > 0; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, server.getRegistry().size());
+    }
+
+    @Test
+    public void testLastLineWithoutNewlineRunsAtEndOfInput() throws Exception {
+        try (Socket a = connect()) {
+            send(a, "C 3 1");
+            a.shutdownOutput();
+            assertEquals("-----" + NL + "|   |" + NL + "-----" + NL, read(a, 15 + 3 * NL.length()));
+            assertEquals(-1, a.getInputStream().read());
+        }
+    }
+
+    @Test
+    public void testOutputBeyondTheLimitWaitsForTheClient() throws Exception {
+        long frame = 2002L * (4002 + NL.length());
+        try (Socket a = connect()) {
+            send(a, "C 4000 2000\nC 4000 2000\nC 4000 2000\nC 4000 2000\nC 4000 2000\n");
+            Thread.sleep(200);
+            InputStream in = a.getInputStream();
+            byte[] buffer = new byte[65536];
+            long total = 0;
+            while (total < 5L * frame) {
+                int n = in.read(buffer);
+                if (n < 0) {
+                    break;
+                }
+                total += n;
+            }
+            assertEquals(5L * frame, total);
+        }
+    }
+
+    @Test
+    public void testClientThatStopsReadingDoesNotHoldTheWorker() throws Exception {
+        CanvasServer single = new CanvasServer(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0),
+                Executors.newFixedThreadPool(1));
+        single.start();
+        long frame = 2002L * (4002 + NL.length());
+        try (Socket a = connect(single); Socket b = connect(single)) {
+            StringBuilder commands = new StringBuilder();
+            for (int i = 0; i < 8; i++) {
+                commands.append("C 4000 2000\n");
+            }
+            send(a, commands.toString());
+            Thread.sleep(200);
+
+            send(b, "C 1 1\n");
+            assertEquals("---" + NL + "| |" + NL + "---" + NL, read(b, 9 + 3 * NL.length()));
+
+            InputStream in = a.getInputStream();
+            byte[] buffer = new byte[65536];
+            long total = 0;
+            while (total < 8L * frame) {
+                int n = in.read(buffer);
+                if (n < 0) {
+                    break;
+                }
+                total += n;
+            }
+            assertEquals(8L * frame, total);
+        } finally {
+            single.close();
+        }
+    }
+
+    @Test
+    public void testServesManyIdleConnections() throws Exception {
+        List<Socket> sockets = new ArrayList<>();
+        try {
+            for (int i = 0; i < 200; i++) {
+                sockets.add(connect());
+            }
+            for (Socket socket : sockets) {
+                send(socket, "C 1 1\n");
+            }
+            for (Socket socket : sockets) {
+                assertEquals("---" + NL + "| |" + NL + "---" + NL, read(socket, 9 + 3 * NL.length()));
+            }
+            assertEquals(200, server.getRegistry().size());
+        } finally {
+            for (Socket socket : sockets) {
+                socket.close();
+            }
+        }
+    }
+
+    private Socket connect() throws IOException {
+        return connect(server);
+    }
+
+    private Socket connect(CanvasServer server) throws IOException {
+        Socket socket = new Socket(InetAddress.getLoopbackAddress(), server.getPort());
+        socket.setSoTimeout(10000);
+        return socket;
+    }
+
+    private void send(Socket socket, String text) throws IOException {
+        OutputStream out = socket.getOutputStream();
+        out.write(text.getBytes(StandardCharsets.UTF_8));
+        out.flush();
+    }
+
+    private String read(Socket socket, int length) throws IOException {
+        InputStream in = socket.getInputStream();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        while (bytes.size() < length) {
+            int b = in.read();
+            if (b < 0) {
+                break;
+            }
+            bytes.write(b);
+        }
+        return bytes.toString("UTF-8");
+    }
+}
@@ -0,0 +1,110 @@
+package org.canvas.lonell.snapshot;
+
+import org.canvas.lonell.entity.Canvas;
+import org.canvas.lonell.entity.CanvasStorage;
+import org.canvas.lonell.entity.StorageType;
+import org.canvas.lonell.entity.TiledStorage;
+import org.canvas.lonell.manager.CanvasSession;
+import org.canvas.lonell.render.ByteSink;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class SnapshotTest {
+
+    private static final String NL = System.lineSeparator();
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        Canvas canvas = new Canvas(20, 4);
+        canvas.paintRow(1, 1, 20, 'x');
+        canvas.paintColumn(7, 1, 4, 'x');
+        canvas.fillRow(3, 2, 5, 'é');
+        canvas.set(4, 20, 'o');
+        Path file = folder.newFile().toPath();
+
+        Snapshot.save(canvas, file);
+        Canvas loaded = new Canvas(Snapshot.load(file, null));
+
+        assertArrayEquals(canvas.toArray(), loaded.toArray());
+    }
+
+    @Test
+    public void testLoadIntoTiledStorageLeavesBlankTilesUnallocated() throws Exception {
+        Canvas canvas = new Canvas(1000, 1000, StorageType.FLAT);
+        canvas.paintRow(10, 1, 1000, 'x');
+        Path file = folder.newFile().toPath();
+
+        Snapshot.save(canvas, file);
+        assertTrue(Files.size(file) < 4000);
+        CanvasStorage storage = Snapshot.load(file, StorageType.TILED);
+
+        assertEquals(16, ((TiledStorage) storage).getAllocatedTiles());
+        assertEquals('x', storage.get(9, 999));
+        assertEquals(' ', storage.get(10, 0));
+    }
+
+    @Test
+    public void testRejectsCorruptedFile() throws Exception {
+        Canvas canvas = new Canvas(10, 10);
+        canvas.paintRow(5, 1, 10, 'x');
+        Path file = folder.newFile().toPath();
+        Snapshot.save(canvas, file);
+
+        try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+            raf.seek(raf.length() - 5);
+            raf.write('o');
+        }
+
+        try {
+            Snapshot.load(file, null);
+            fail();
+        } catch (IOException e) {
+            assertEquals("Snapshot checksum mismatch.", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testSaveAndOpenCommands() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        CanvasSession session = new CanvasSession(new ByteSink(out));
+        session.setAutoRender(false);
+        Path file = folder.getRoot().toPath().resolve("my canvas.snap");
+
+        session.execute("C 3 1");
+        session.execute("L 1 1 2 1");
+        session.execute("S " + file);
+        session.execute("C 5 5");
+        session.execute("O " + file);
+        session.draw();
+
+        assertEquals("-----" + NL + "|xx |" + NL + "-----" + NL, out.toString());
+
+        session.execute("U");
+        assertEquals(7, session.getCanvas().getWidth());
+    }
+
+    @Test
+    public void testOpenMissingFile() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        CanvasSession session = new CanvasSession(new ByteSink(out));
+
+        session.execute("O " + folder.getRoot().toPath().resolve("missing"));
+
+        assertTrue(out.toString().startsWith("Unable to open canvas: "));
+    }
+}